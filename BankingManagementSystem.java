@@ -1,7 +1,9 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder; // Needed for TitledBorder color change
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableModel;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.BorderLayout;
@@ -13,13 +15,70 @@ import java.awt.GridBagConstraints;
 import java.awt.Insets;
 import java.awt.event.*;
 import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.DateTimeException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.OptionalDouble;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 // ======================================================
 // ✅ MAIN BANKING SYSTEM CLASS
@@ -34,22 +93,61 @@ public class BankingManagementSystem extends JFrame {
     private JTabbedPane tabbedPane;
     private JPanel dashboardPanel;
 
-    private List<Customer> customers = new ArrayList<>();
-    private List<Account> accounts = new ArrayList<>();
-    private List<Transaction> transactions = new ArrayList<>();
-
-    // Auto-increment counters
-    private int nextCustomerId = 1001;
-    private int nextAccountId = 5001;
-    private int nextTransactionId = 10001;
+    // Dashboard figures are kept up to date as data changes; the labels are only re-read
+    private final DashboardStats stats = new DashboardStats();
+    private final JLabel customersStat = new JLabel();
+    private final JLabel accountsStat = new JLabel();
+    private final JLabel activeAccountsStat = new JLabel();
+    private final JLabel transactionsStat = new JLabel();
+    private final JLabel totalBalanceStat = new JLabel();
+    private final JLabel averageBalanceStat = new JLabel();
+    // Picks up postings made by teller terminals, which do not pass through this window
+    private final Timer dashboardTimer = new Timer(1000, e -> refreshDashboard());
+
+    // Mutated on the persistence writer, read on the EDT
+    private List<Customer> customers = Collections.synchronizedList(new ArrayList<>());
+    // Accounts and transactions are also touched by posting-engine threads
+    private List<Account> accounts = Collections.synchronizedList(new ArrayList<>());
+    private List<Transaction> transactions = Collections.synchronizedList(new ArrayList<>());
+    private final TransactionIndex transactionIndex = new TransactionIndex();
+
+    // Primary-key index, kept in step with the customers list (accounts are indexed by the engine)
+    private final IntHashMap<Customer> customersById = new IntHashMap<>();
+
+    // Id series for customers, accounts and transactions, resumed from ids.csv at startup
+    private final IdAllocator ids = new IdAllocator(IDS_FILE);
+
+    // All balance changes go through the engine; this frame is one of its clients
+    private final PostingEngine postingEngine = new PostingEngine(ids.transactions, this::onPosted);
 
     private static final String CUSTOMERS_FILE = "customers.csv";
     private static final String ACCOUNTS_FILE = "accounts.csv";
-    private static final String TRANSACTIONS_FILE = "transactions.csv";
-    private final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-    private DefaultTableModel customerTableModel;
-    private DefaultTableModel accountTableModel;
+    private static final String TRANSACTIONS_FILE = "transactions.csv"; // legacy single file, migrated into segments
+    private static final String TRANSACTIONS_DIR = "transactions";
+    private static final String ACCOUNTS_DAT_FILE = "accounts.dat";
+    private static final String IDS_FILE = "ids.csv";
+    // Run with -Dbank.tellerPort=<port> to let teller terminals post against this ledger over loopback
+    private static final Integer TELLER_PORT = Integer.getInteger("bank.tellerPort");
+    private TellerServer tellerServer;
+
+    // All file work from button actions runs on this writer; the EDT only queues it and reacts
+    private static final int PENDING_WRITES_LIMIT = 256;
+    private final PersistenceWriter persistence = new PersistenceWriter(PENDING_WRITES_LIMIT, this::showPendingWrites);
+    private JLabel pendingWritesLabel;
+    // Run with -Dbank.accountStorage=mapped to keep accounts in the fixed-width binary file
+    private static final boolean MAPPED_ACCOUNTS = "mapped".equalsIgnoreCase(System.getProperty("bank.accountStorage"));
+    private final SegmentedTransactionStore transactionStore = new SegmentedTransactionStore(TRANSACTIONS_DIR, TRANSACTIONS_FILE);
+    private final AccountStore accountStore = new AccountStore(ACCOUNTS_FILE);
+    private MappedAccountStore mappedAccountStore;
+
+    // Backed by the in-memory records; changes arrive as row-level events from any thread
+    private volatile CustomerTableModel customerTableModel;
+    private volatile AccountTableModel accountTableModel;
+
+    // History tab: EDT-confined paging state
+    private static final int HISTORY_PAGE_SIZE = 200;
+    private HistoryPager historyPager;
+    private boolean historyLoading;
 
     private static BankingManagementSystem instance;
 
@@ -59,15 +157,44 @@ public class BankingManagementSystem extends JFrame {
 
         setTitle("🏦 Banking Management System - Welcome " + username);
         setExtendedState(JFrame.MAXIMIZED_BOTH);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Closing waits for queued writes, see handleWindowClosing()
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                handleWindowClosing();
+            }
+        });
         setLocationRelativeTo(null);
         getContentPane().setBackground(BG_COLOR);
 
-        loadData();
-        recalculateNextIds();
-
-        initializeGUI(username);
+        JLabel loadingLabel = new JLabel("Loading data...", SwingConstants.CENTER);
+        loadingLabel.setForeground(TEXT_COLOR);
+        loadingLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
+        add(loadingLabel, BorderLayout.CENTER);
         setVisible(true);
+
+        // Files are read off the EDT; the window is built once the data is in memory
+        CompletableFuture.runAsync(() -> {
+            loadData();
+            ids.load();
+            recalculateNextIds();
+        }).whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                // Running on a partial ledger would let new postings overwrite what failed to load
+                Throwable cause = error;
+                while ((cause instanceof CompletionException || cause instanceof UncheckedIOException) && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                JOptionPane.showMessageDialog(this, "Data could not be loaded: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                System.exit(1);
+            }
+            remove(loadingLabel);
+            startTellerServer();
+            initializeGUI(username);
+            revalidate();
+            repaint();
+        }));
     }
 
     // -------------------- GUI Initialization --------------------
@@ -87,6 +214,11 @@ public class BankingManagementSystem extends JFrame {
         logoutButton.addActionListener(e -> handleLogout());
         headerPanel.add(logoutButton, BorderLayout.EAST);
 
+        pendingWritesLabel = new JLabel("", SwingConstants.CENTER);
+        pendingWritesLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        headerPanel.add(pendingWritesLabel, BorderLayout.CENTER);
+        showPendingWrites(persistence.pending());
+
         add(headerPanel, BorderLayout.NORTH);
 
         // --- Tabbed Pane ---
@@ -114,11 +246,45 @@ public class BankingManagementSystem extends JFrame {
                 JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
 
         if (response == JOptionPane.YES_OPTION) {
+            // The next session reads the files again, so it starts only after the writer drained
             dispose();
-            SwingUtilities.invokeLater(LoginFrame::new);
+            persistence.close().whenComplete((v, error) -> SwingUtilities.invokeLater(LoginFrame::new));
         }
     }
 
+    private void handleWindowClosing() {
+        setTitle(getTitle() + " - saving...");
+        persistence.close().whenComplete((v, error) -> System.exit(0));
+    }
+
+    // Called from any thread whenever the number of queued writes changes
+    private void showPendingWrites(int pending) {
+        SwingUtilities.invokeLater(() -> {
+            if (pendingWritesLabel == null) return;
+            if (pending > 0) {
+                pendingWritesLabel.setForeground(new Color(241, 196, 15));
+                pendingWritesLabel.setText("💾 Saving... (" + pending + " pending)");
+            } else {
+                pendingWritesLabel.setForeground(new Color(46, 204, 113));
+                pendingWritesLabel.setText("✔ All changes saved");
+            }
+        });
+    }
+
+    // Hands the outcome of queued work back to the EDT. Success callbacks run only once the
+    // work, and the writes it covers, are on disk; failures get an error dialog instead.
+    private <T> void whenDurable(CompletableFuture<T> written, Consumer<T> onDurable) {
+        written.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                onDurable.accept(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof UncheckedIOException) cause = cause.getCause(); // a posting the engine could not make durable
+            JOptionPane.showMessageDialog(this, "Changes could not be saved: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }));
+    }
+
     // --- Dashboard Panel ---
     private JPanel createDashboardPanel(String username) {
         JPanel panel = new JPanel(new BorderLayout());
@@ -134,28 +300,25 @@ public class BankingManagementSystem extends JFrame {
         grid.setBackground(BG_COLOR);
         grid.setBorder(new EmptyBorder(20, 20, 20, 20));
 
-        long activeAccounts = accounts.stream().filter(a -> "Active".equals(a.status)).count();
-        double totalBalance = accounts.stream().mapToDouble(a -> a.balance).sum();
-        OptionalDouble avgBalanceOpt = accounts.stream().mapToDouble(a -> a.balance).average();
-        double avgBalance = avgBalanceOpt.isPresent() ? avgBalanceOpt.getAsDouble() : 0;
-
-        grid.add(createStatBox("Total Customers", String.valueOf(customers.size())));
-        grid.add(createStatBox("Total Accounts", String.valueOf(accounts.size())));
-        grid.add(createStatBox("Active Accounts", String.valueOf(activeAccounts)));
-        grid.add(createStatBox("Total Transactions", String.valueOf(transactions.size())));
-        grid.add(createStatBox("Total Balance", String.format("₹%.2f", totalBalance)));
-        grid.add(createStatBox("Average Balance", String.format("₹%.2f", avgBalance)));
+        grid.add(createStatBox("Total Customers", customersStat));
+        grid.add(createStatBox("Total Accounts", accountsStat));
+        grid.add(createStatBox("Active Accounts", activeAccountsStat));
+        grid.add(createStatBox("Total Transactions", transactionsStat));
+        grid.add(createStatBox("Total Balance", totalBalanceStat));
+        grid.add(createStatBox("Average Balance", averageBalanceStat));
+        refreshDashboard();
+        dashboardTimer.start();
 
         panel.add(grid, BorderLayout.CENTER);
         return panel;
     }
 
-    private JPanel createStatBox(String label, String value) {
+    private JPanel createStatBox(String label, JLabel v) {
         JPanel box = new JPanel(new BorderLayout());
         box.setBackground(PANEL_COLOR);
         box.setBorder(BorderFactory.createLineBorder(ACCENT_COLOR, 2));
 
-        JLabel v = new JLabel(value, SwingConstants.CENTER);
+        v.setHorizontalAlignment(SwingConstants.CENTER);
         v.setFont(new Font("Segoe UI", Font.BOLD, 30));
         v.setForeground(Color.WHITE);
 
@@ -184,10 +347,15 @@ public class BankingManagementSystem extends JFrame {
 
         // Table
         String[] cols = {"ID", "Name", "Email", "Phone", "Address"};
-        customerTableModel = new DefaultTableModel(cols, 0);
-        JTable table = createStyledTable(customerTableModel);
+        CustomerTableModel model = new CustomerTableModel(cols);
+        JTable table = createStyledTable(model);
 
-        loadCustomersIntoTable(customerTableModel);
+        // Filled and published under the list's lock, which addCustomer also holds, so every
+        // customer reaches the table exactly once: in the snapshot or as a later insert
+        synchronized (customers) {
+            model.setRecords(customers);
+            customerTableModel = model;
+        }
         JScrollPane scroll = new JScrollPane(table);
         scroll.getViewport().setBackground(PANEL_COLOR);
         panel.add(scroll, BorderLayout.CENTER);
@@ -202,7 +370,7 @@ public class BankingManagementSystem extends JFrame {
         JTextField phoneField = createStyledTextField("Phone");
         JTextField addressField = createStyledTextField("Address");
 
-        JLabel nextIdLabel = new JLabel("Next ID: " + nextCustomerId);
+        JLabel nextIdLabel = new JLabel("Next ID: " + ids.customers.peek());
         nextIdLabel.setForeground(TEXT_COLOR);
         nextIdLabel.setBorder(BorderFactory.createEmptyBorder(25, 0, 0, 0));
 
@@ -225,19 +393,23 @@ public class BankingManagementSystem extends JFrame {
                 return;
             }
 
-            Customer c = new Customer(nextCustomerId++, name, email, phone, address);
-            customers.add(c);
-            saveCustomers();
-            loadCustomersIntoTable(customerTableModel);
-            refreshDashboard();
+            // Id allocation may write ids.csv, so it happens on the writer too
+            CompletableFuture<Customer> added = persistence.submit(() -> {
+                Customer c = new Customer(ids.customers.next(), name, email, phone, address);
+                addCustomer(c);
+                return c;
+            });
+            whenDurable(added.thenCompose(c -> persistence.markDirty("customers", this::saveCustomers).thenApply(v -> c)), c -> {
+                refreshDashboard();
 
-            nameField.setText("");
-            emailField.setText("");
-            phoneField.setText("");
-            addressField.setText("");
-            nextIdLabel.setText("Next ID: " + nextCustomerId);
+                nameField.setText("");
+                emailField.setText("");
+                phoneField.setText("");
+                addressField.setText("");
+                nextIdLabel.setText("Next ID: " + ids.customers.peek());
 
-            JOptionPane.showMessageDialog(this, "✅ Customer added successfully! ID: " + c.id, "Success", JOptionPane.INFORMATION_MESSAGE);
+                JOptionPane.showMessageDialog(this, "✅ Customer added successfully! ID: " + c.id, "Success", JOptionPane.INFORMATION_MESSAGE);
+            });
         });
 
         JPanel southPanel = new JPanel(new BorderLayout());
@@ -267,9 +439,13 @@ public class BankingManagementSystem extends JFrame {
 
         // --- Table ---
         String[] cols = {"Account ID", "Customer ID", "Type", "Balance", "Status", "Created Date"};
-        accountTableModel = new DefaultTableModel(cols, 0);
-        JTable table = createStyledTable(accountTableModel);
-        loadAccountsIntoTable(accountTableModel);
+        AccountTableModel model = new AccountTableModel(cols);
+        JTable table = createStyledTable(model);
+        // As for customers: the snapshot and the publish are atomic with respect to addAccount
+        synchronized (accounts) {
+            model.setRecords(accounts);
+            accountTableModel = model;
+        }
 
         JScrollPane scroll = new JScrollPane(table);
         scroll.getViewport().setBackground(PANEL_COLOR);
@@ -300,7 +476,7 @@ public class BankingManagementSystem extends JFrame {
         JButton createButton = createStyledButton("Create Account", ACCENT_COLOR);
         JButton viewButton = createStyledButton("View Details", new Color(46, 204, 113));
 
-        JLabel nextIdLabel = new JLabel("Next Acc ID: " + nextAccountId);
+        JLabel nextIdLabel = new JLabel("Next Acc ID: " + ids.accounts.peek());
         nextIdLabel.setForeground(TEXT_COLOR);
         nextIdLabel.setBorder(BorderFactory.createEmptyBorder(15, 0, 0, 0));
 
@@ -473,12 +649,18 @@ public class BankingManagementSystem extends JFrame {
         panel.add(inputPanel, BorderLayout.NORTH);
 
         String[] columns = {"ID", "Type", "Amount (₹)", "Balance After (₹)", "Date", "Description"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
+        HistoryTableModel model = new HistoryTableModel(columns);
         JTable table = createStyledTable(model);
         JScrollPane scrollPane = new JScrollPane(table);
         scrollPane.getViewport().setBackground(PANEL_COLOR);
         panel.add(scrollPane, BorderLayout.CENTER);
 
+        // The next page is fetched once the user scrolls within a screen of the end
+        JScrollBar bar = scrollPane.getVerticalScrollBar();
+        bar.addAdjustmentListener(e -> {
+            if (bar.getValue() + 2 * bar.getVisibleAmount() >= bar.getMaximum()) loadHistoryPage(model);
+        });
+
         viewButton.addActionListener(e -> handleTransactionHistory(accountIdField.getText(), model));
         return panel;
     }
@@ -501,8 +683,8 @@ public class BankingManagementSystem extends JFrame {
 
             if (account != null && customer != null) {
                 String details = String.format(
-                    "Account ID: %d\nCustomer ID: %d\nCustomer Name: %s\nAccount Type: %s\nStatus: %s\nCurrent Balance: ₹%.2f\nCreated: %s",
-                    account.accountId, customer.id, customer.name, account.accountType, account.status, account.balance, account.createdDate);
+                    "Account ID: %d\nCustomer ID: %d\nCustomer Name: %s\nAccount Type: %s\nStatus: %s\nCurrent Balance: ₹%s\nCreated: %s",
+                    account.accountId, customer.id, customer.name, account.accountTypeName(), account.statusName(), Money.format(account.balance), Timestamps.format(account.createdDate));
 
                 JOptionPane.showMessageDialog(this, details, "Account Details", JOptionPane.INFORMATION_MESSAGE);
             }
@@ -514,26 +696,19 @@ public class BankingManagementSystem extends JFrame {
     private void handleDeposit(String accountIdStr, String amountStr) {
         try {
             int accountId = Integer.parseInt(accountIdStr.trim());
-            double amount = Double.parseDouble(amountStr.trim());
-            Account account = findAccount(accountId);
-
-            if (account == null) {
-                JOptionPane.showMessageDialog(this, "Account ID not found.", "Error", JOptionPane.ERROR_MESSAGE); return;
-            }
-            if (amount <= 0) {
-                JOptionPane.showMessageDialog(this, "Deposit amount must be positive.", "Error", JOptionPane.ERROR_MESSAGE); return;
-            }
-
-            account.balance += amount;
-            saveAccounts();
-
-            Transaction t = new Transaction(nextTransactionId++, accountId, "DEPOSIT", amount, account.balance, LocalDateTime.now().format(DTF), "Cash Deposit");
-            transactions.add(t);
-            saveTransactions();
+            long amount = Money.parse(amountStr);
+            // The engine returns once the posting is durable, so it runs on the writer
+            whenDurable(persistence.submit(() -> postingEngine.deposit(accountId, amount)), result -> {
+                if (result.status == PostingEngine.Status.ACCOUNT_NOT_FOUND) {
+                    JOptionPane.showMessageDialog(this, "Account ID not found.", "Error", JOptionPane.ERROR_MESSAGE); return;
+                }
+                if (result.status == PostingEngine.Status.INVALID_AMOUNT) {
+                    JOptionPane.showMessageDialog(this, "Deposit amount must be positive.", "Error", JOptionPane.ERROR_MESSAGE); return;
+                }
 
-            loadAccountsIntoTable(accountTableModel);
-            refreshDashboard();
-            JOptionPane.showMessageDialog(this, String.format("✅ Deposit of ₹%.2f successful.\nNew Balance: ₹%.2f", amount, account.balance), "Success", JOptionPane.INFORMATION_MESSAGE);
+                refreshDashboard();
+                JOptionPane.showMessageDialog(this, String.format("✅ Deposit of ₹%s successful.\nNew Balance: ₹%s", Money.format(amount), Money.format(result.balance)), "Success", JOptionPane.INFORMATION_MESSAGE);
+            });
 
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Invalid input! ID and Amount must be numbers.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -543,29 +718,21 @@ public class BankingManagementSystem extends JFrame {
     private void handleWithdrawal(String accountIdStr, String amountStr) {
         try {
             int accountId = Integer.parseInt(accountIdStr.trim());
-            double amount = Double.parseDouble(amountStr.trim());
-            Account account = findAccount(accountId);
-
-            if (account == null) {
-                JOptionPane.showMessageDialog(this, "Account ID not found.", "Error", JOptionPane.ERROR_MESSAGE); return;
-            }
-            if (amount <= 0) {
-                JOptionPane.showMessageDialog(this, "Withdrawal amount must be positive.", "Error", JOptionPane.ERROR_MESSAGE); return;
-            }
-            if (account.balance < amount) {
-                JOptionPane.showMessageDialog(this, "Insufficient funds! Balance: ₹" + String.format("%.2f", account.balance), "Error", JOptionPane.ERROR_MESSAGE); return;
-            }
-
-            account.balance -= amount;
-            saveAccounts();
-
-            Transaction t = new Transaction(nextTransactionId++, accountId, "WITHDRAWAL", amount, account.balance, LocalDateTime.now().format(DTF), "Cash Withdrawal");
-            transactions.add(t);
-            saveTransactions();
+            long amount = Money.parse(amountStr);
+            whenDurable(persistence.submit(() -> postingEngine.withdraw(accountId, amount)), result -> {
+                if (result.status == PostingEngine.Status.ACCOUNT_NOT_FOUND) {
+                    JOptionPane.showMessageDialog(this, "Account ID not found.", "Error", JOptionPane.ERROR_MESSAGE); return;
+                }
+                if (result.status == PostingEngine.Status.INVALID_AMOUNT) {
+                    JOptionPane.showMessageDialog(this, "Withdrawal amount must be positive.", "Error", JOptionPane.ERROR_MESSAGE); return;
+                }
+                if (result.status == PostingEngine.Status.INSUFFICIENT_FUNDS) {
+                    JOptionPane.showMessageDialog(this, "Insufficient funds! Balance: ₹" + Money.format(result.balance), "Error", JOptionPane.ERROR_MESSAGE); return;
+                }
 
-            loadAccountsIntoTable(accountTableModel);
-            refreshDashboard();
-            JOptionPane.showMessageDialog(this, String.format("✅ Withdrawal of ₹%.2f successful.\nNew Balance: ₹%.2f", amount, account.balance), "Success", JOptionPane.INFORMATION_MESSAGE);
+                refreshDashboard();
+                JOptionPane.showMessageDialog(this, String.format("✅ Withdrawal of ₹%s successful.\nNew Balance: ₹%s", Money.format(amount), Money.format(result.balance)), "Success", JOptionPane.INFORMATION_MESSAGE);
+            });
 
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Invalid input! ID and Amount must be numbers.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -576,44 +743,25 @@ public class BankingManagementSystem extends JFrame {
         try {
             int sourceId = Integer.parseInt(sourceIdStr.trim());
             int destId = Integer.parseInt(destIdStr.trim());
-            double amount = Double.parseDouble(amountStr.trim());
-
-            Account sourceAccount = findAccount(sourceId);
-            Account destAccount = findAccount(destId);
-
-            if (sourceAccount == null || destAccount == null) {
-                JOptionPane.showMessageDialog(this, "One or both Account IDs not found.", "Error", JOptionPane.ERROR_MESSAGE); return;
-            }
-            if (sourceId == destId) {
-                JOptionPane.showMessageDialog(this, "Cannot transfer to the same account.", "Error", JOptionPane.ERROR_MESSAGE); return;
-            }
-            if (amount <= 0) {
-                JOptionPane.showMessageDialog(this, "Transfer amount must be positive.", "Error", JOptionPane.ERROR_MESSAGE); return;
-            }
-            if (sourceAccount.balance < amount) {
-                JOptionPane.showMessageDialog(this, "Insufficient funds in source account.", "Error", JOptionPane.ERROR_MESSAGE); return;
-            }
-
-            // Perform transfer
-            sourceAccount.balance -= amount;
-            destAccount.balance += amount;
-            saveAccounts();
-
-            String date = LocalDateTime.now().format(DTF);
-
-            // Source transaction (Debit)
-            Transaction tSource = new Transaction(nextTransactionId++, sourceId, "TRANSFER_OUT", amount, sourceAccount.balance, date, "Transfer to " + destId);
-            transactions.add(tSource);
-
-            // Destination transaction (Credit)
-            Transaction tDest = new Transaction(nextTransactionId++, destId, "TRANSFER_IN", amount, destAccount.balance, date, "Transfer from " + sourceId);
-            transactions.add(tDest);
-            saveTransactions();
+            long amount = Money.parse(amountStr);
+            whenDurable(persistence.submit(() -> postingEngine.transfer(sourceId, destId, amount)), result -> {
+                if (result.status == PostingEngine.Status.ACCOUNT_NOT_FOUND) {
+                    JOptionPane.showMessageDialog(this, "One or both Account IDs not found.", "Error", JOptionPane.ERROR_MESSAGE); return;
+                }
+                if (result.status == PostingEngine.Status.SAME_ACCOUNT) {
+                    JOptionPane.showMessageDialog(this, "Cannot transfer to the same account.", "Error", JOptionPane.ERROR_MESSAGE); return;
+                }
+                if (result.status == PostingEngine.Status.INVALID_AMOUNT) {
+                    JOptionPane.showMessageDialog(this, "Transfer amount must be positive.", "Error", JOptionPane.ERROR_MESSAGE); return;
+                }
+                if (result.status == PostingEngine.Status.INSUFFICIENT_FUNDS) {
+                    JOptionPane.showMessageDialog(this, "Insufficient funds in source account.", "Error", JOptionPane.ERROR_MESSAGE); return;
+                }
 
-            loadAccountsIntoTable(accountTableModel);
-            refreshDashboard();
-            JOptionPane.showMessageDialog(this, String.format("✅ Transfer of ₹%.2f successful.\nSource New Balance: ₹%.2f\nDest New Balance: ₹%.2f",
-                amount, sourceAccount.balance, destAccount.balance), "Success", JOptionPane.INFORMATION_MESSAGE);
+                refreshDashboard();
+                JOptionPane.showMessageDialog(this, String.format("✅ Transfer of ₹%s successful.\nSource New Balance: ₹%s\nDest New Balance: ₹%s",
+                    Money.format(amount), Money.format(result.balance), Money.format(result.counterpartyBalance)), "Success", JOptionPane.INFORMATION_MESSAGE);
+            });
 
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Invalid input! IDs and Amount must be numbers.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -640,9 +788,9 @@ public class BankingManagementSystem extends JFrame {
                 "Type: %s\n" +
                 "Status: %s\n" +
                 "----------------------\n" +
-                "Current Balance: ₹%.2f",
+                "Current Balance: ₹%s",
                 account.accountId, customer != null ? customer.name : "N/A", account.customerId,
-                account.accountType, account.status, account.balance);
+                account.accountTypeName(), account.statusName(), Money.format(account.balance));
 
             resultArea.setText(result);
 
@@ -651,8 +799,9 @@ public class BankingManagementSystem extends JFrame {
         }
     }
 
-    private void handleTransactionHistory(String accountIdStr, DefaultTableModel model) {
-        model.setRowCount(0);
+    private void handleTransactionHistory(String accountIdStr, HistoryTableModel model) {
+        model.setRecords(Collections.emptyList());
+        historyPager = null;
         try {
             int accountId = Integer.parseInt(accountIdStr.trim());
             Account account = findAccount(accountId);
@@ -661,36 +810,63 @@ public class BankingManagementSystem extends JFrame {
                 JOptionPane.showMessageDialog(this, "Account ID not found.", "Error", JOptionPane.ERROR_MESSAGE); return;
             }
 
-            List<Transaction> accountHistory = transactions.stream()
-                .filter(t -> t.accountId == accountId)
-                .collect(Collectors.toList());
-
-            for (Transaction t : accountHistory) {
-                model.addRow(new Object[]{
-                    t.transactionId,
-                    t.type,
-                    String.format("₹%.2f", t.amount),
-                    String.format("₹%.2f", t.balanceAfter),
-                    t.date,
-                    t.description
-                });
-            }
-
-            if (accountHistory.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No transactions found for Account ID " + accountId + ".", "Info", JOptionPane.INFORMATION_MESSAGE);
-            }
+            historyPager = new HistoryPager(accountId, transactionIndex, transactionStore);
+            loadHistoryPage(model);
 
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Invalid input! Account ID must be a number.", "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
+    // Fetches the next page on a worker; older pages may come from disk. At most one
+    // page is in flight, and a page for an account no longer shown is dropped.
+    private void loadHistoryPage(HistoryTableModel model) {
+        HistoryPager pager = historyPager;
+        if (pager == null || historyLoading || pager.isExhausted()) return;
+        historyLoading = true;
+        new SwingWorker<List<Transaction>, Void>() {
+            @Override
+            protected List<Transaction> doInBackground() throws IOException {
+                return pager.nextPage(HISTORY_PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                historyLoading = false;
+                if (pager != historyPager) {
+                    loadHistoryPage(model);
+                    return;
+                }
+                List<Transaction> page;
+                try {
+                    page = get();
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(BankingManagementSystem.this, "Could not load older transactions.", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                boolean first = model.getRowCount() == 0;
+                model.appendRecords(page);
+                if (first && page.isEmpty()) {
+                    JOptionPane.showMessageDialog(BankingManagementSystem.this, "No transactions found for Account ID " + pager.accountId() + ".", "Info", JOptionPane.INFORMATION_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+
+    // Oldest first. Older segments are paged in only if their account bitmap says they hold
+    // this account. Serves HISTORY requests from the teller server.
+    private List<Transaction> accountHistory(int accountId) throws IOException {
+        List<Transaction> accountHistory = new ArrayList<>(transactionStore.olderHistory(accountId));
+        accountHistory.addAll(transactionIndex.forAccount(accountId));
+        return accountHistory;
+    }
 
     // --- Account Creation Logic ---
     private void handleAccountCreation(String customerIdStr, String accountType, String initialDepositStr, JTextField customerIdField, JTextField initialDepositField) {
         try {
             int customerId = Integer.parseInt(customerIdStr.trim());
-            double initialDeposit = Double.parseDouble(initialDepositStr.trim());
+            long initialDeposit = Money.parse(initialDepositStr);
 
             if (findCustomer(customerId) == null) {
                 JOptionPane.showMessageDialog(this, "Customer ID not found!", "Error", JOptionPane.ERROR_MESSAGE);
@@ -702,42 +878,42 @@ public class BankingManagementSystem extends JFrame {
                 return;
             }
 
-            String currentDate = LocalDateTime.now().format(DTF);
-            Account account = new Account(nextAccountId++, customerId, accountType, initialDeposit, "Active", currentDate);
-            accounts.add(account);
-            saveAccounts();
-
-            if (initialDeposit > 0) {
-                Transaction transaction = new Transaction(nextTransactionId++, account.accountId, "DEPOSIT", initialDeposit, initialDeposit, currentDate, "Initial deposit");
-                transactions.add(transaction);
-                saveTransactions();
-            }
-
-            loadAccountsIntoTable(accountTableModel);
-            refreshDashboard();
+            CompletableFuture<Account> created = persistence.submit(() -> {
+                long currentDate = Timestamps.now();
+                Account account = new Account(ids.accounts.next(), customerId,
+                        CodeDictionary.ACCOUNT_TYPES.code(accountType), initialDeposit, CodeDictionary.ACTIVE, currentDate);
+                addAccount(account);
+                logNewAccount(account);
+
+                if (initialDeposit > 0) {
+                    Transaction transaction = new Transaction(postingEngine.allocateTransactionId(), account.accountId, CodeDictionary.DEPOSIT, initialDeposit, initialDeposit, currentDate, "Initial deposit");
+                    recordTransaction(transaction);
+                    appendTransactions(transaction);
+                }
+                return account;
+            });
+            whenDurable(created, account -> {
+                refreshDashboard();
 
-            customerIdField.setText("");
-            initialDepositField.setText("");
+                customerIdField.setText("");
+                initialDepositField.setText("");
 
-            JOptionPane.showMessageDialog(this, "✅ Account created successfully! ID: " + account.accountId, "Success", JOptionPane.INFORMATION_MESSAGE);
+                JOptionPane.showMessageDialog(this, "✅ Account created successfully! ID: " + account.accountId, "Success", JOptionPane.INFORMATION_MESSAGE);
+            });
 
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Invalid input! Customer ID and Deposit must be numbers.", "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
+    // O(1): reads the running aggregates and updates the existing labels in place
     private void refreshDashboard() {
-        // Get the original username from the title
-        String fullTitle = getTitle();
-        String username = fullTitle.substring(fullTitle.lastIndexOf(" ") + 1);
-
-        // Remove and re-add the dashboard panel to force refresh calculations
-        int index = tabbedPane.indexOfComponent(dashboardPanel);
-        if (index != -1) {
-            tabbedPane.removeTabAt(index);
-        }
-        dashboardPanel = createDashboardPanel(username);
-        tabbedPane.insertTab("🏠 Dashboard", null, dashboardPanel, "View Overview", 0);
+        customersStat.setText(String.valueOf(stats.customers()));
+        accountsStat.setText(String.valueOf(stats.accounts()));
+        activeAccountsStat.setText(String.valueOf(stats.activeAccounts()));
+        transactionsStat.setText(String.valueOf(stats.transactions()));
+        totalBalanceStat.setText("₹" + Money.format(stats.totalBalance()));
+        averageBalanceStat.setText("₹" + Money.format(stats.averageBalance()));
     }
 
     // ======================================================
@@ -767,8 +943,22 @@ public class BankingManagementSystem extends JFrame {
         panel.add(component, gbc);
     }
 
-    private JTable createStyledTable(DefaultTableModel model) {
+    private JTable createStyledTable(TableModel model) {
         JTable table = new JTable(model);
+        // Money columns hold long paise and are formatted only when a cell is painted,
+        // i.e. for the visible rows
+        table.setDefaultRenderer(Long.class, new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                setText(value == null ? "" : "₹" + Money.format((Long) value));
+            }
+        });
+        table.setDefaultRenderer(Instant.class, new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                setText(value == null ? "" : Timestamps.format(((Instant) value).toEpochMilli()));
+            }
+        });
         table.setBackground(PANEL_COLOR);
         table.setForeground(Color.WHITE);
         table.setFont(new Font("Segoe UI", Font.PLAIN, 14));
@@ -803,114 +993,206 @@ public class BankingManagementSystem extends JFrame {
         return button;
     }
 
-    private void loadCustomersIntoTable(DefaultTableModel model) {
-        model.setRowCount(0);
-        for (Customer c : customers) {
-            model.addRow(new Object[]{c.id, c.name, c.email, c.phone, c.address});
-        }
+    private void recordTransaction(Transaction t) {
+        transactions.add(t);
+        transactionIndex.add(t);
+        stats.transactionsRecorded(1);
     }
 
-    private void loadAccountsIntoTable(DefaultTableModel model) {
-        model.setRowCount(0);
-        for (Account a : accounts) {
-            model.addRow(new Object[]{
-                a.accountId,
-                a.customerId,
-                a.accountType,
-                String.format("₹%.2f", a.balance),
-                a.status,
-                a.createdDate
-            });
+    // Each series resumes right after the highest id in the data, not at the ids.csv mark, which
+    // runs ahead of it; ids stay dense across restarts and so do the accountId - 5001 slots
+    private void recalculateNextIds() {
+        ids.customers.resumeAfter(customers.stream().mapToInt(c -> c.id).max().orElse(0));
+        if (mappedAccountStore != null) {
+            ids.accounts.resumeAfter(mappedAccountStore.nextAccountId() - 1);
+        } else {
+            ids.accounts.resumeAfter(accounts.stream().mapToInt(a -> a.accountId).max().orElse(0));
         }
+        // Segment headers carry the id range, so unloaded history still counts
+        ids.transactions.resumeAfter(transactionStore.maxTransactionId());
     }
 
-    private void recalculateNextIds() {
-        customers.stream().mapToInt(c -> c.id).max().ifPresent(maxId -> nextCustomerId = maxId + 1);
-        accounts.stream().mapToInt(a -> a.accountId).max().ifPresent(maxId -> nextAccountId = maxId + 1);
-        transactions.stream().mapToInt(t -> t.transactionId).max().ifPresent(maxId -> nextTransactionId = maxId + 1);
+    private Account findAccount(int accountId) {
+        return postingEngine.find(accountId);
     }
 
-    private Account findAccount(int accountId) {
-        for (Account a : accounts) {
-            if (a.accountId == accountId) return a;
+    private Customer findCustomer(int customerId) {
+        synchronized (customersById) {
+            return customersById.get(customerId);
         }
-        return null;
     }
 
-    private Customer findCustomer(int customerId) {
-        for (Customer c : customers) {
-            if (c.id == customerId) return c;
+    private void addCustomer(Customer c) {
+        CustomerTableModel model;
+        synchronized (customers) {
+            customers.add(c);
+            model = customerTableModel;
         }
-        return null;
+        stats.customerAdded();
+        if (model != null) model.added(c);
+        synchronized (customersById) {
+            customersById.put(c.id, c);
+        }
+    }
+
+    private void addAccount(Account a) {
+        AccountTableModel model;
+        synchronized (accounts) {
+            accounts.add(a);
+            model = accountTableModel;
+        }
+        stats.accountAdded(a);
+        if (model != null) model.added(a);
+        postingEngine.register(a);
     }
 
     // ======================================================
     // ✅ FILE HANDLING
     // ======================================================
     private void loadData() {
-        loadCustomers();
-        loadAccounts();
-        loadTransactions();
+        // The three stores are independent, so they are read concurrently
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(unchecked(this::loadCustomers)),
+                CompletableFuture.runAsync(unchecked(this::loadAccounts)),
+                CompletableFuture.runAsync(unchecked(this::loadTransactions))).join();
     }
 
-    private void loadCustomers() {
-        try (BufferedReader br = new BufferedReader(new FileReader(CUSTOMERS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    customers.add(Customer.fromCSV(line));
-                }
+    private static Runnable unchecked(PersistenceWriter.IoAction load) {
+        return () -> {
+            try {
+                load.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        } catch (IOException ignored) {}
+        };
     }
 
-    private void saveCustomers() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(CUSTOMERS_FILE))) {
-            for (Customer c : customers) {
-                bw.write(c.toCSV());
-                bw.newLine();
-            }
-        } catch (IOException ignored) {}
+    private void startTellerServer() {
+        if (TELLER_PORT == null) return;
+        try {
+            tellerServer = new TellerServer(TELLER_PORT, postingEngine, this::accountHistory, LoginFrame::checkCredentials);
+            tellerServer.start();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Teller server could not start on port " + TELLER_PORT + ": " + e.getMessage(),
+                    "Warning", JOptionPane.WARNING_MESSAGE);
+        }
     }
 
-    private void loadAccounts() {
-        try (BufferedReader br = new BufferedReader(new FileReader(ACCOUNTS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    accounts.add(Account.fromCSV(line));
-                }
-            }
-        } catch (IOException ignored) {}
+    // Frees the teller port on logout, so the next session's frame can bind it again
+    @Override
+    public void dispose() {
+        dashboardTimer.stop();
+        if (tellerServer != null) tellerServer.close();
+        persistence.close();
+        super.dispose();
     }
 
-    private void saveAccounts() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(ACCOUNTS_FILE))) {
-            for (Account a : accounts) {
-                bw.write(a.toCSV());
-                bw.newLine();
+    private void loadCustomers() throws IOException {
+        for (Customer c : CsvParser.readCustomers(new File(CUSTOMERS_FILE))) addCustomer(c);
+    }
+
+    private final RecordEncoder customerRows = new RecordEncoder(1 << 16); // persistence writer only
+
+    // Runs on the persistence writer. The file is synced and renamed into place, so a
+    // confirmation shown after this returns means the customer is on disk.
+    private void saveCustomers() throws IOException {
+        File tmp = new File(CUSTOMERS_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            synchronized (customers) {
+                for (Customer c : customers) {
+                    customerRows.customer(c);
+                    if (customerRows.length() >= 1 << 16) customerRows.flushTo(out);
+                }
             }
-        } catch (IOException ignored) {}
+            customerRows.flushTo(out);
+            out.getFD().sync();
+        } finally {
+            customerRows.reset();
+        }
+        Files.move(tmp.toPath(), Paths.get(CUSTOMERS_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
-    private void loadTransactions() {
-        try (BufferedReader br = new BufferedReader(new FileReader(TRANSACTIONS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    transactions.add(Transaction.fromCSV(line));
+    private void loadAccounts() throws IOException {
+        if (MAPPED_ACCOUNTS) {
+            // First start in mapped mode converts the existing CSV snapshot and WAL
+            if (!new File(ACCOUNTS_DAT_FILE).exists()) {
+                List<Account> loaded = accountStore.load();
+                try {
+                    MappedAccountStore.convertFromAccounts(loaded, ACCOUNTS_DAT_FILE);
+                } catch (IOException e) {
+                    // Rows the binary layout cannot hold: keep running on the CSV store
+                    System.err.println("Staying on " + ACCOUNTS_FILE + ": " + e.getMessage());
+                    for (Account a : loaded) addAccount(a);
+                    return;
                 }
             }
-        } catch (IOException ignored) {}
+            mappedAccountStore = MappedAccountStore.open(ACCOUNTS_DAT_FILE);
+            for (Account a : mappedAccountStore.loadAll()) addAccount(a);
+        } else {
+            for (Account a : accountStore.load()) addAccount(a);
+        }
     }
 
-    private void saveTransactions() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(TRANSACTIONS_FILE))) {
-            for (Transaction t : transactions) {
-                bw.write(t.toCSV());
-                bw.newLine();
+    // Balance changes go to the write-ahead log (or in place in mapped mode); accounts.csv is only
+    // rewritten by a periodic snapshot.
+    private CompletableFuture<Void> logBalances(Account... changed) {
+        if (mappedAccountStore != null) {
+            try {
+                for (Account a : changed) mappedAccountStore.updateBalance(a.accountId, a.balance);
+            } catch (UncheckedIOException e) {
+                return CompletableFuture.failedFuture(e.getCause()); // the page could not be forced
             }
-        } catch (IOException ignored) {}
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> written = accountStore.logBalances(changed);
+        accountStore.snapshotIfDue(accounts);
+        return written;
+    }
+
+    // Posting-engine sink, called with the changed accounts locked so their redo records
+    // reach the logs in posting order. The engine waits for the returned future.
+    private CompletableFuture<Void> onPosted(Account[] changed, Transaction[] posted) {
+        AccountTableModel model = accountTableModel;
+        if (model != null) {
+            for (Account a : changed) model.changed(a.accountId);
+        }
+        for (Transaction t : posted) {
+            recordTransaction(t);
+            // Transfers move money between accounts and leave the total unchanged
+            if (t.type == CodeDictionary.DEPOSIT) stats.balanceChanged(t.amount);
+            else if (t.type == CodeDictionary.WITHDRAWAL) stats.balanceChanged(-t.amount);
+        }
+        return CompletableFuture.allOf(logBalances(changed), transactionStore.append(posted));
+    }
+
+    private void logNewAccount(Account account) throws IOException {
+        if (mappedAccountStore != null) {
+            mappedAccountStore.put(account);
+            return;
+        }
+        awaitDurable(accountStore.logNewAccount(account));
+        accountStore.snapshotIfDue(accounts);
+    }
+
+    private void loadTransactions() throws IOException {
+        transactions.addAll(transactionStore.load());
+        transactionIndex.rebuild(transactions);
+        // Segment headers count history that was not loaded
+        stats.transactionsRecorded(transactionStore.totalCount());
+    }
+
+    // Only the records produced by one posting are written; the journal is never rewritten.
+    private void appendTransactions(Transaction... newTransactions) throws IOException {
+        awaitDurable(transactionStore.append(newTransactions));
+    }
+
+    // In group-commit mode this waits for the batch fsync that covers the posting
+    private void awaitDurable(CompletableFuture<Void> written) throws IOException {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            throw PostingEngine.writeFailure(e).getCause();
+        }
     }
 
     // ======================================================
@@ -937,9 +1219,10 @@ public class BankingManagementSystem extends JFrame {
 
     static class Account {
         int accountId, customerId;
-        String accountType, status, createdDate;
-        double balance;
-        Account(int accountId, int customerId, String accountType, double balance, String status, String createdDate) {
+        byte accountType, status; // CodeDictionary.ACCOUNT_TYPES / STATUSES
+        long balance;     // paise
+        long createdDate; // epoch millis
+        Account(int accountId, int customerId, byte accountType, long balance, byte status, long createdDate) {
             this.accountId = accountId;
             this.customerId = customerId;
             this.accountType = accountType;
@@ -949,20 +1232,28 @@ public class BankingManagementSystem extends JFrame {
         }
         static Account fromCSV(String csv) {
             String[] p = csv.split(",");
-            return new Account(Integer.parseInt(p[0]), Integer.parseInt(p[1]), p[2],
-                                     Double.parseDouble(p[3]), p[4], p[5]);
+            return new Account(Integer.parseInt(p[0]), Integer.parseInt(p[1]), CodeDictionary.ACCOUNT_TYPES.code(p[2]),
+                                     Money.parse(p[3]), CodeDictionary.STATUSES.code(p[4]), Timestamps.parse(p[5]));
+        }
+        String accountTypeName() {
+            return CodeDictionary.ACCOUNT_TYPES.name(accountType);
+        }
+        String statusName() {
+            return CodeDictionary.STATUSES.name(status);
         }
         String toCSV() {
-              return accountId + "," + customerId + "," + accountType + "," + balance + "," + status + "," + createdDate;
+              return accountId + "," + customerId + "," + accountTypeName() + "," + Money.format(balance) + "," + statusName() + "," + createdDate;
         }
     }
 
     static class Transaction {
         int transactionId, accountId;
-        String type, date, description;
-        double amount, balanceAfter;
-        Transaction(int transactionId, int accountId, String type,
-                    double amount, double balanceAfter, String date, String description) {
+        byte type;                 // CodeDictionary.TRANSACTION_TYPES
+        String description;
+        long amount, balanceAfter; // paise
+        long date;                 // epoch millis
+        Transaction(int transactionId, int accountId, byte type,
+                    long amount, long balanceAfter, long date, String description) {
             this.transactionId = transactionId;
             this.accountId = accountId;
             this.type = type;
@@ -973,11 +1264,14 @@ public class BankingManagementSystem extends JFrame {
         }
         static Transaction fromCSV(String csv) {
             String[] p = csv.split(",", 7); // Limit split to 7 to handle commas in description (if any)
-            return new Transaction(Integer.parseInt(p[0]), Integer.parseInt(p[1]), p[2],
-                                     Double.parseDouble(p[3]), Double.parseDouble(p[4]), p[5], p.length > 6 ? p[6] : "");
+            return new Transaction(Integer.parseInt(p[0]), Integer.parseInt(p[1]), CodeDictionary.TRANSACTION_TYPES.code(p[2]),
+                                     Money.parse(p[3]), Money.parse(p[4]), Timestamps.parse(p[5]), p.length > 6 ? p[6] : "");
+        }
+        String typeName() {
+            return CodeDictionary.TRANSACTION_TYPES.name(type);
         }
         String toCSV() {
-              return transactionId + "," + accountId + "," + type + "," + amount + "," + balanceAfter + "," + date + "," + description;
+              return transactionId + "," + accountId + "," + typeName() + "," + Money.format(amount) + "," + Money.format(balanceAfter) + "," + date + "," + description;
         }
     }
 
@@ -985,53 +1279,4469 @@ public class BankingManagementSystem extends JFrame {
     // ✅ START LOGIN
     // ======================================================
     public static void main(String[] args) {
+        // Offline converters between accounts.csv and the binary store used by -Dbank.accountStorage=mapped
+        if (args.length == 1 && "--accounts-to-dat".equals(args[0])) {
+            try {
+                MappedAccountStore.convertFromAccounts(new AccountStore(ACCOUNTS_FILE).load(), ACCOUNTS_DAT_FILE);
+            } catch (IOException e) {
+                System.err.println("Conversion failed: " + e.getMessage());
+            }
+            return;
+        }
+        if (args.length == 1 && "--accounts-to-csv".equals(args[0])) {
+            try {
+                MappedAccountStore.convertToCsv(ACCOUNTS_DAT_FILE, ACCOUNTS_FILE);
+            } catch (IOException e) {
+                System.err.println("Conversion failed: " + e.getMessage());
+            }
+            return;
+        }
+        // End-of-day file posting: --post-batch <file> [report]
+        if (args.length >= 2 && "--post-batch".equals(args[0])) {
+            File report = new File(args.length > 2 ? args[2] : args[1] + ".report.csv");
+            try {
+                if (MAPPED_ACCOUNTS && !new File(ACCOUNTS_DAT_FILE).exists()) {
+                    MappedAccountStore.convertFromAccounts(new AccountStore(ACCOUNTS_FILE).load(), ACCOUNTS_DAT_FILE);
+                }
+                new BatchPosting(new AccountStore(ACCOUNTS_FILE),
+                        MAPPED_ACCOUNTS ? MappedAccountStore.open(ACCOUNTS_DAT_FILE) : null,
+                        new SegmentedTransactionStore(TRANSACTIONS_DIR, TRANSACTIONS_FILE),
+                        new IdAllocator(IDS_FILE)).run(new File(args[1]), report);
+            } catch (IOException e) {
+                System.err.println("Batch posting failed: " + e.getMessage());
+            }
+            return;
+        }
+        // Headless concurrency check of the posting engine: [threads] [hot accounts] [seconds]
+        if (args.length >= 1 && "--stress-transfers".equals(args[0])) {
+            try {
+                TransferStress.run(args.length > 1 ? Integer.parseInt(args[1]) : 16,
+                        args.length > 2 ? Integer.parseInt(args[2]) : 8,
+                        args.length > 3 ? Integer.parseInt(args[3]) : 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        // Concurrent terminals against the teller server: <connections> <requests each> [port user password]
+        if (args.length >= 3 && "--teller-load".equals(args[0])) {
+            try {
+                TellerLoadTest.run(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                        args.length > 3 ? Integer.valueOf(args[3]) : null,
+                        args.length > 4 ? args[4] : "load", args.length > 5 ? args[5] : "load");
+            } catch (Exception e) {
+                System.err.println("Load test failed: " + e);
+            }
+            return;
+        }
+        // Lock-based posting engine throughput and latency: [threads] [hot accounts] [seconds]
+        if (args.length >= 1 && "--bench-postings".equals(args[0])) {
+            try {
+                PostingBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 8,
+                        args.length > 2 ? Integer.parseInt(args[2]) : 1000,
+                        args.length > 3 ? Integer.parseInt(args[3]) : 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        // One-off rewrite of files written while amounts were doubles (Double.toString text,
+        // double balances in accounts.dat) into exact paise
+        if (args.length == 1 && "--migrate-money".equals(args[0])) {
+            try {
+                int accountCount = 0;
+                if (new File(ACCOUNTS_FILE).exists()) {
+                    AccountStore store = new AccountStore(ACCOUNTS_FILE);
+                    List<Account> loaded = store.load();
+                    store.checkpoint(loaded);
+                    accountCount = loaded.size();
+                }
+                if (new File(ACCOUNTS_DAT_FILE).exists()) {
+                    MappedAccountStore.open(ACCOUNTS_DAT_FILE).close(); // converted on open
+                }
+                int transactionCount = new SegmentedTransactionStore(TRANSACTIONS_DIR, TRANSACTIONS_FILE).rewriteCsvSegments();
+                System.out.printf("Rewrote %d accounts and %d transactions%n", accountCount, transactionCount);
+            } catch (IOException e) {
+                System.err.println("Migration failed: " + e.getMessage());
+            }
+            return;
+        }
+        // Allocation per serialized record, toCSV vs RecordEncoder: [records]
+        if (args.length >= 1 && "--bench-encode".equals(args[0])) {
+            EncoderBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+        // Account lookup cost from 1K accounts up to [max accounts]
+        if (args.length >= 1 && "--bench-lookup".equals(args[0])) {
+            LookupBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000);
+            return;
+        }
+        // Transactions file load, line reader vs byte-level parser: [rows]
+        if (args.length >= 1 && "--bench-load".equals(args[0])) {
+            try {
+                LoadBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000);
+            } catch (IOException e) {
+                System.err.println("Load benchmark failed: " + e.getMessage());
+            }
+            return;
+        }
+        // Heap and GC cost of accounts as objects vs AccountTable columns: [accounts] [list|table]
+        if (args.length >= 1 && "--bench-accounts".equals(args[0])) {
+            try {
+                AccountMemoryBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000, args.length > 2 ? args[2] : null);
+            } catch (IOException e) {
+                System.err.println("Account benchmark failed: " + e.getMessage());
+            }
+            return;
+        }
+        // Heap per transaction and account, byte codes vs the older String fields: [transactions] [accounts]
+        if (args.length >= 1 && "--bench-heap".equals(args[0])) {
+            HeapBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000,
+                    args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000);
+            return;
+        }
+        // Dashboard totals over heap objects, double rupees and long paise: [accounts]
+        if (args.length >= 1 && "--bench-dashboard".equals(args[0])) {
+            DashboardBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000);
+            return;
+        }
         SwingUtilities.invokeLater(LoginFrame::new);
     }
 }
 
 // ======================================================
-// ✅ LOGIN FRAME (UPDATED)
+// ✅ MONEY (LONG PAISE)
 // ======================================================
-class LoginFrame extends JFrame {
-    private JTextField usernameField;
-    private JTextField emailField;
-    private JPasswordField passwordField;
-    private final String USERS_FILE = "users.csv";
-    private final String USER_DETAILS_FILE = "user_details.csv";
-
-    public LoginFrame() {
-        setTitle("🔐 Bank Login");
-        setExtendedState(JFrame.MAXIMIZED_BOTH);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        getContentPane().setLayout(new BorderLayout());
+// Every balance and amount is a whole number of paise in a long. Text only appears at the
+// edges: CSV files and messages hold rupees with exactly two decimals.
+final class Money {
+    private static final long FAST_LIMIT = Long.MAX_VALUE / 1000; // keeps the fast path from overflowing
+
+    private Money() {}
+
+    // "1500", "1500.5", "-3.05". Anything else - an exponent, more than two decimals, the
+    // Double.toString output of older files - is rounded half-up to the paisa.
+    static long parse(String text) {
+        String s = text.trim();
+        int n = s.length(), i = 0;
+        boolean negative = n > 0 && s.charAt(0) == '-';
+        if (negative) i++;
+        long paise = 0;
+        int fractionDigits = -1; // -1 until the decimal point
+        boolean digits = false;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9' && fractionDigits < 2 && paise < FAST_LIMIT) {
+                paise = paise * 10 + (c - '0');
+                digits = true;
+                if (fractionDigits >= 0) fractionDigits++;
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return parseRounded(s);
+            }
+        }
+        if (!digits) throw new NumberFormatException("Not an amount: \"" + text + "\"");
+        for (int k = Math.max(fractionDigits, 0); k < 2; k++) paise *= 10;
+        return negative ? -paise : paise;
+    }
 
-        // Dark theme colors
-        Color BG_COLOR = new Color(30, 33, 35);
-        Color PANEL_COLOR = new Color(45, 48, 50);
-        Color ACCENT_COLOR = new Color(0, 153, 255);
-        Color TEXT_COLOR = Color.WHITE;
+    private static long parseRounded(String s) {
+        try {
+            return new BigDecimal(s).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + s);
+        }
+    }
 
-        // --- 1. Top Title Panel ---
-        JPanel headerPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        headerPanel.setBackground(PANEL_COLOR);
-        headerPanel.setBorder(new EmptyBorder(10, 0, 10, 0));
-        
-        JLabel mainTitle = new JLabel("BANKING MANAGEMENT LOGIN", SwingConstants.CENTER); 
-        mainTitle.setForeground(ACCENT_COLOR);
-        mainTitle.setFont(new Font("Segoe UI", Font.BOLD, 36));
-        headerPanel.add(mainTitle);
-        add(headerPanel, BorderLayout.NORTH);
+    static String format(long paise) {
+        long abs = Math.abs(paise);
+        long fraction = abs % 100;
+        return (paise < 0 ? "-" : "") + abs / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
 
-        // --- 2. Login Form Panel (Centered) ---
-        JPanel formContainer = new JPanel(new GridBagLayout());
-        formContainer.setBackground(BG_COLOR);
+// ======================================================
+// ✅ CODE DICTIONARIES (TYPE / STATUS)
+// ======================================================
+// Account type, status and transaction type are byte codes in memory; the names appear
+// only in files and on screen. Values the application writes have fixed codes. Any other
+// spelling found in older files is appended, so no row is dropped, and a code keeps its
+// meaning for the life of the process.
+final class CodeDictionary {
+    static final CodeDictionary ACCOUNT_TYPES = new CodeDictionary("Savings", "Current");
+    static final CodeDictionary STATUSES = new CodeDictionary("Active");
+    static final CodeDictionary TRANSACTION_TYPES =
+            new CodeDictionary("DEPOSIT", "WITHDRAWAL", "TRANSFER_IN", "TRANSFER_OUT");
+
+    static final byte SAVINGS = 0, CURRENT = 1;
+    static final byte ACTIVE = 0;
+    static final byte DEPOSIT = 0, WITHDRAWAL = 1, TRANSFER_IN = 2, TRANSFER_OUT = 3;
+
+    private static final int MAX_CODES = 256;
+
+    private volatile String[] names; // copy-on-write; index = code & 0xFF
+
+    private CodeDictionary(String... fixed) {
+        this.names = fixed;
+    }
 
-        // Login box content
-        JPanel panel = new JPanel(new BorderLayout(10, 20));
-        panel.setBackground(new Color(25, 25, 25));
-        panel.setBorder(new EmptyBorder(30, 40, 30, 40));
-        panel.setPreferredSize(new java.awt.Dimension(350, 400));
+    byte code(String name) {
+        String[] current = names;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(name)) return (byte) i;
+        }
+        return append(name);
+    }
+
+    private synchronized byte append(String name) {
+        String[] current = names;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(name)) return (byte) i; // added by another thread
+        }
+        if (current.length == MAX_CODES) throw new IllegalStateException("More than " + MAX_CODES + " distinct values");
+        String[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = name;
+        names = grown;
+        return (byte) current.length;
+    }
+
+    String name(byte code) {
+        return names[code & 0xFF];
+    }
+
+    // Snapshot for byte-level matching by the parsers; codes are array indexes
+    String[] names() {
+        return names;
+    }
+}
+
+// ======================================================
+// ✅ RECORD HEAP BENCHMARK (--bench-heap)
+// ======================================================
+class HeapBenchmark {
+    // The record shapes from before the byte codes, when type and status were String fields
+    private static final class StringTypedTransaction {
+        int transactionId, accountId;
+        String type, description;
+        long amount, balanceAfter, date;
+    }
+
+    private static final class StringTypedAccount {
+        int accountId, customerId;
+        String accountType, status;
+        long balance, createdDate;
+    }
+
+    // Retained heap per record for each layout: used heap across a full collection, with only
+    // the records themselves added in between. Type names and descriptions are shared constants,
+    // as the parsers shared known values, so the figures are the record objects alone. Run with
+    // -XX:-UseCompressedOops as well to see the uncompressed layout. Accounts go first, before
+    // the large transaction runs have churned the heap.
+    static void run(int transactions, int accounts) {
+        System.out.println("UseCompressedOops=" + ManagementFactory.getPlatformMXBean(
+                com.sun.management.HotSpotDiagnosticMXBean.class).getVMOption("UseCompressedOops").getValue());
+        measure("Account (byte codes)", accounts, i -> new BankingManagementSystem.Account(5001 + i, 1001,
+                CodeDictionary.SAVINGS, 1_00L * i, CodeDictionary.ACTIVE, 1_704_067_200_000L));
+        measure("Account (String codes)", accounts, i -> {
+            StringTypedAccount a = new StringTypedAccount();
+            a.accountId = 5001 + i;
+            a.customerId = 1001;
+            a.accountType = "Savings";
+            a.status = "Active";
+            a.balance = 1_00L * i;
+            a.createdDate = 1_704_067_200_000L;
+            return a;
+        });
+        measure("Transaction (byte type)", transactions, i -> new BankingManagementSystem.Transaction(10001 + i, 5001 + i % 1000,
+                CodeDictionary.DEPOSIT, 1_00, 1_00L * i, 1_704_067_200_000L + i, "Cash Deposit"));
+        measure("Transaction (String type)", transactions, i -> {
+            StringTypedTransaction t = new StringTypedTransaction();
+            t.transactionId = 10001 + i;
+            t.accountId = 5001 + i % 1000;
+            t.type = "DEPOSIT";
+            t.description = "Cash Deposit";
+            t.amount = 1_00;
+            t.balanceAfter = 1_00L * i;
+            t.date = 1_704_067_200_000L + i;
+            return t;
+        });
+    }
+
+    private static void measure(String name, int count, IntFunction<Object> factory) {
+        Object[] held = new Object[count];
+        long before = usedAfterGc();
+        for (int i = 0; i < count; i++) held[i] = factory.apply(i);
+        long retained = usedAfterGc() - before;
+        System.out.printf("%-26s %,11d records  %5.1f B/record  %,8.1f MB%n",
+                name, count, retained / (double) count, retained / 1e6);
+        Objects.requireNonNull(held[count - 1]); // keeps the records reachable through the collection
+    }
+
+    // Two collections: the first can leave the previous layout's records to the next one
+    private static long usedAfterGc() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
+
+// ======================================================
+// ✅ TIMESTAMPS (EPOCH MILLIS)
+// ======================================================
+// Dates are epoch millis in a long from creation to storage; they become text only when shown.
+// Files written before this held "yyyy-MM-dd HH:mm:ss" in the machine's local time, which is
+// still read wherever a date is.
+final class Timestamps {
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final ZoneOffset FIXED_OFFSET =
+            ZONE.getRules().isFixedOffset() ? ZONE.getRules().getOffset(Instant.EPOCH) : null;
+
+    static final long UNKNOWN = 0; // older rows could leave the date empty
+
+    private Timestamps() {}
+
+    static long now() {
+        return System.currentTimeMillis();
+    }
+
+    // Epoch millis, or a legacy local date-time; blank is UNKNOWN
+    static long parse(String text) {
+        String s = text.trim();
+        if (s.isEmpty()) return UNKNOWN;
+        boolean digits = true;
+        for (int i = 0; i < s.length() && digits; i++) {
+            char c = s.charAt(i);
+            digits = c >= '0' && c <= '9' || i == 0 && c == '-' && s.length() > 1;
+        }
+        if (digits) return Long.parseLong(s);
+        return LocalDateTime.parse(s, FORMAT).atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    // Days since 1970-01-01 for a proleptic Gregorian date (civil-from-days inverse)
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        if (month == 2) return Year.isLeap(year) ? 29 : 28;
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    // Seconds counted on the local wall clock from 1970-01-01 00:00, as the legacy text encodes
+    static long fromLocalEpochSecond(long localSeconds) {
+        if (FIXED_OFFSET != null) return (localSeconds - FIXED_OFFSET.getTotalSeconds()) * 1000;
+        return LocalDateTime.ofEpochSecond(localSeconds, 0, ZoneOffset.UTC)
+                .atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    static String format(long millis) {
+        if (millis == UNKNOWN) return "";
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZONE).format(FORMAT);
+    }
+}
+
+// ======================================================
+// ✅ POSTING ENGINE (HEADLESS, THREAD-SAFE)
+// ======================================================
+class PostingEngine {
+    enum Status { OK, ACCOUNT_NOT_FOUND, SAME_ACCOUNT, INVALID_AMOUNT, INSUFFICIENT_FUNDS }
+
+    // Outcome of one posting, amounts in paise. Balances are the values right after it, or at
+    // the time of rejection.
+    static final class PostingResult {
+        final Status status;
+        final long amount;
+        final long balance;             // the account, or the source of a transfer
+        final long counterpartyBalance; // the destination of a transfer
+        final List<BankingManagementSystem.Transaction> transactions;
+
+        PostingResult(Status status, long amount, long balance, long counterpartyBalance,
+                      List<BankingManagementSystem.Transaction> transactions) {
+            this.status = status;
+            this.amount = amount;
+            this.balance = balance;
+            this.counterpartyBalance = counterpartyBalance;
+            this.transactions = transactions;
+        }
+
+        boolean isSuccess() {
+            return status == Status.OK;
+        }
+    }
+
+    // Receives every successful posting while the accounts involved are still locked
+    interface PostingSink {
+        CompletableFuture<Void> posted(BankingManagementSystem.Account[] changed,
+                                       BankingManagementSystem.Transaction[] transactions);
+    }
+
+    // Each account carries its own lock, so postings only contend when they share an account
+    private static final class Entry {
+        final BankingManagementSystem.Account account;
+        final ReentrantLock lock = new ReentrantLock();
+
+        Entry(BankingManagementSystem.Account account) {
+            this.account = account;
+        }
+    }
+
+    private final IntHashMap<Entry> accounts = new IntHashMap<>();
+    private final ReadWriteLock registryLock = new ReentrantReadWriteLock();
+    private final IdAllocator.Sequence transactionIds;
+    private final PostingSink sink;
+
+    PostingEngine(PostingSink sink) {
+        this(IdAllocator.Sequence.inMemory(10001, 64), sink);
+    }
+
+    PostingEngine(IdAllocator.Sequence transactionIds, PostingSink sink) {
+        this.transactionIds = transactionIds;
+        this.sink = sink;
+    }
+
+    void register(BankingManagementSystem.Account account) {
+        registryLock.writeLock().lock();
+        try {
+            accounts.put(account.accountId, new Entry(account));
+        } finally {
+            registryLock.writeLock().unlock();
+        }
+    }
+
+    BankingManagementSystem.Account find(int accountId) {
+        Entry entry = entry(accountId);
+        return entry == null ? null : entry.account;
+    }
+
+    private Entry entry(int accountId) {
+        registryLock.readLock().lock();
+        try {
+            return accounts.get(accountId);
+        } finally {
+            registryLock.readLock().unlock();
+        }
+    }
+
+    int allocateTransactionId() {
+        return transactionIds.next();
+    }
+
+    PostingResult deposit(int accountId, long amount) {
+        Entry entry = entry(accountId);
+        if (entry == null) return rejected(Status.ACCOUNT_NOT_FOUND, amount, 0);
+        BankingManagementSystem.Account account = entry.account;
+        if (amount <= 0) return rejected(Status.INVALID_AMOUNT, amount, account.balance);
+
+        BankingManagementSystem.Transaction t;
+        CompletableFuture<Void> written;
+        ReentrantLock lock = entry.lock;
+        lock.lock();
+        try {
+            // Allocated first: a failed id reservation must leave the balance untouched
+            int transactionId = allocateTransactionId();
+            account.balance += amount;
+            t = new BankingManagementSystem.Transaction(transactionId, accountId, CodeDictionary.DEPOSIT,
+                    amount, account.balance, Timestamps.now(), "Cash Deposit");
+            written = sink.posted(new BankingManagementSystem.Account[]{account}, new BankingManagementSystem.Transaction[]{t});
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(written);
+        return new PostingResult(Status.OK, amount, t.balanceAfter, 0, Collections.singletonList(t));
+    }
+
+    PostingResult withdraw(int accountId, long amount) {
+        Entry entry = entry(accountId);
+        if (entry == null) return rejected(Status.ACCOUNT_NOT_FOUND, amount, 0);
+        BankingManagementSystem.Account account = entry.account;
+        if (amount <= 0) return rejected(Status.INVALID_AMOUNT, amount, account.balance);
+
+        BankingManagementSystem.Transaction t;
+        CompletableFuture<Void> written;
+        ReentrantLock lock = entry.lock;
+        lock.lock();
+        try {
+            // Checked under the lock so two withdrawals cannot both pass on the same funds
+            if (account.balance < amount) return rejected(Status.INSUFFICIENT_FUNDS, amount, account.balance);
+            int transactionId = allocateTransactionId();
+            account.balance -= amount;
+            t = new BankingManagementSystem.Transaction(transactionId, accountId, CodeDictionary.WITHDRAWAL,
+                    amount, account.balance, Timestamps.now(), "Cash Withdrawal");
+            written = sink.posted(new BankingManagementSystem.Account[]{account}, new BankingManagementSystem.Transaction[]{t});
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(written);
+        return new PostingResult(Status.OK, amount, t.balanceAfter, 0, Collections.singletonList(t));
+    }
+
+    PostingResult transfer(int sourceId, int destId, long amount) {
+        Entry sourceEntry = entry(sourceId);
+        Entry destEntry = entry(destId);
+        if (sourceEntry == null || destEntry == null) return rejected(Status.ACCOUNT_NOT_FOUND, amount, 0);
+        BankingManagementSystem.Account source = sourceEntry.account;
+        BankingManagementSystem.Account dest = destEntry.account;
+        if (sourceId == destId) return rejected(Status.SAME_ACCOUNT, amount, source.balance);
+        if (amount <= 0) return rejected(Status.INVALID_AMOUNT, amount, source.balance);
+
+        // Locks are always taken lower account ID first, so A->B and B->A cannot deadlock
+        ReentrantLock first = sourceId < destId ? sourceEntry.lock : destEntry.lock;
+        ReentrantLock second = sourceId < destId ? destEntry.lock : sourceEntry.lock;
+
+        BankingManagementSystem.Transaction debit, credit;
+        CompletableFuture<Void> written;
+        first.lock();
+        second.lock();
+        try {
+            if (source.balance < amount) return rejected(Status.INSUFFICIENT_FUNDS, amount, source.balance);
+            int debitId = allocateTransactionId();
+            int creditId = allocateTransactionId();
+            source.balance -= amount;
+            dest.balance += amount;
+
+            long date = Timestamps.now();
+            debit = new BankingManagementSystem.Transaction(debitId, sourceId, CodeDictionary.TRANSFER_OUT,
+                    amount, source.balance, date, "Transfer to " + destId);
+            credit = new BankingManagementSystem.Transaction(creditId, destId, CodeDictionary.TRANSFER_IN,
+                    amount, dest.balance, date, "Transfer from " + sourceId);
+            written = sink.posted(new BankingManagementSystem.Account[]{source, dest},
+                    new BankingManagementSystem.Transaction[]{debit, credit});
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+        awaitDurable(written);
+        return new PostingResult(Status.OK, amount, debit.balanceAfter, credit.balanceAfter, Arrays.asList(debit, credit));
+    }
+
+    private static PostingResult rejected(Status status, long amount, long balance) {
+        return new PostingResult(status, amount, balance, 0, Collections.emptyList());
+    }
+
+    // The posting stays applied in memory, but the caller must not confirm it: a write the
+    // sink could not complete is thrown, after the account locks are released
+    private static void awaitDurable(CompletableFuture<Void> written) {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            throw writeFailure(e);
+        }
+    }
+
+    static UncheckedIOException writeFailure(CompletionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof UncheckedIOException) return (UncheckedIOException) cause;
+        return new UncheckedIOException(cause instanceof IOException ? (IOException) cause
+                : new IOException(cause.getMessage(), cause));
+    }
+}
+
+// ======================================================
+// ✅ TABLE MODELS (ROW-LEVEL EVENTS)
+// ======================================================
+// Rows are the in-memory records themselves; cells are read on demand, so only rows being
+// painted are ever touched. The row list is EDT-confined. Other threads report inserts and
+// changes, and those are applied on the EDT in one batch.
+abstract class RecordTableModel<T> extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private final String[] columns;
+    private final List<T> rows = new ArrayList<>();
+    private final IntHashMap<Integer> rowById = new IntHashMap<>();
+
+    private final List<T> pendingInserts = new ArrayList<>();
+    private int[] pendingChanges = new int[16];
+    private int pendingChangeCount;
+    private boolean flushScheduled;
+
+    RecordTableModel(String[] columns) {
+        this.columns = columns;
+    }
+
+    abstract int idOf(T record);
+
+    abstract Object cell(T record, int column);
+
+    // EDT only: replaces every row, used once when the tab is built
+    void setRecords(List<T> records) {
+        rows.clear();
+        rowById.clear();
+        for (T record : records) {
+            rowById.put(idOf(record), rows.size());
+            rows.add(record);
+        }
+        fireTableDataChanged();
+    }
+
+    // EDT only: appends rows at the end, e.g. the next page of a paged view
+    void appendRecords(List<T> records) {
+        if (records.isEmpty()) return;
+        int first = rows.size();
+        for (T record : records) {
+            rowById.put(idOf(record), rows.size());
+            rows.add(record);
+        }
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    synchronized void added(T record) {
+        pendingInserts.add(record);
+        scheduleFlush();
+    }
+
+    synchronized void changed(int id) {
+        if (pendingChangeCount == pendingChanges.length) {
+            pendingChanges = Arrays.copyOf(pendingChanges, pendingChangeCount * 2);
+        }
+        pendingChanges[pendingChangeCount++] = id;
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    private void flush() {
+        List<T> inserts;
+        int[] changes;
+        synchronized (this) {
+            inserts = new ArrayList<>(pendingInserts);
+            changes = Arrays.copyOf(pendingChanges, pendingChangeCount);
+            pendingInserts.clear();
+            pendingChangeCount = 0;
+            flushScheduled = false;
+        }
+        if (!inserts.isEmpty()) {
+            int first = rows.size();
+            for (T record : inserts) {
+                rowById.put(idOf(record), rows.size());
+                rows.add(record);
+            }
+            fireTableRowsInserted(first, rows.size() - 1);
+        }
+        for (int id : changes) {
+            Integer row = rowById.get(id);
+            if (row != null) fireTableRowsUpdated(row, row);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return cell(rows.get(row), column);
+    }
+}
+
+class CustomerTableModel extends RecordTableModel<BankingManagementSystem.Customer> {
+    private static final long serialVersionUID = 1L;
+
+    CustomerTableModel(String[] columns) {
+        super(columns);
+    }
+
+    @Override
+    int idOf(BankingManagementSystem.Customer c) {
+        return c.id;
+    }
+
+    @Override
+    Object cell(BankingManagementSystem.Customer c, int column) {
+        switch (column) {
+            case 0: return c.id;
+            case 1: return c.name;
+            case 2: return c.email;
+            case 3: return c.phone;
+            default: return c.address;
+        }
+    }
+}
+
+class HistoryTableModel extends RecordTableModel<BankingManagementSystem.Transaction> {
+    private static final long serialVersionUID = 1L;
+
+    HistoryTableModel(String[] columns) {
+        super(columns);
+    }
+
+    @Override
+    int idOf(BankingManagementSystem.Transaction t) {
+        return t.transactionId;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        if (column == 2 || column == 3) return Long.class;
+        return column == 4 ? Instant.class : Object.class;
+    }
+
+    @Override
+    Object cell(BankingManagementSystem.Transaction t, int column) {
+        switch (column) {
+            case 0: return t.transactionId;
+            case 1: return t.typeName();
+            case 2: return t.amount;
+            case 3: return t.balanceAfter;
+            case 4: return Instant.ofEpochMilli(t.date);
+            default: return t.description;
+        }
+    }
+}
+
+class AccountTableModel extends RecordTableModel<BankingManagementSystem.Account> {
+    private static final long serialVersionUID = 1L;
+
+    AccountTableModel(String[] columns) {
+        super(columns);
+    }
+
+    @Override
+    int idOf(BankingManagementSystem.Account a) {
+        return a.accountId;
+    }
+
+    // The balance stays in paise and the date an instant, so the table's renderers do the formatting
+    @Override
+    public Class<?> getColumnClass(int column) {
+        if (column == 3) return Long.class;
+        return column == 5 ? Instant.class : Object.class;
+    }
+
+    @Override
+    Object cell(BankingManagementSystem.Account a, int column) {
+        switch (column) {
+            case 0: return a.accountId;
+            case 1: return a.customerId;
+            case 2: return a.accountTypeName();
+            case 3: return a.balance;
+            case 4: return a.statusName();
+            default: return Instant.ofEpochMilli(a.createdDate);
+        }
+    }
+}
+
+// ======================================================
+// ✅ DASHBOARD STATS (INCREMENTAL AGGREGATES)
+// ======================================================
+class DashboardStats {
+    private final AtomicInteger customers = new AtomicInteger();
+    private final AtomicInteger accounts = new AtomicInteger();
+    private final AtomicInteger activeAccounts = new AtomicInteger();
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder balancePaise = new LongAdder();
+
+    void customerAdded() {
+        customers.incrementAndGet();
+    }
+
+    void accountAdded(BankingManagementSystem.Account account) {
+        accounts.incrementAndGet();
+        if (account.status == CodeDictionary.ACTIVE) activeAccounts.incrementAndGet();
+        balanceChanged(account.balance);
+    }
+
+    void transactionsRecorded(long count) {
+        transactions.add(count);
+    }
+
+    void balanceChanged(long deltaPaise) {
+        balancePaise.add(deltaPaise);
+    }
+
+    int customers() {
+        return customers.get();
+    }
+
+    int accounts() {
+        return accounts.get();
+    }
+
+    int activeAccounts() {
+        return activeAccounts.get();
+    }
+
+    long transactions() {
+        return transactions.sum();
+    }
+
+    long totalBalance() {
+        return balancePaise.sum();
+    }
+
+    // Rounded half-up to the paisa
+    long averageBalance() {
+        int n = accounts.get();
+        return n == 0 ? 0 : Math.floorDiv(2 * totalBalance() + n, 2L * n);
+    }
+}
+
+// ======================================================
+// ✅ PERSISTENCE WRITER (OFF THE EDT, COALESCING)
+// ======================================================
+class PersistenceWriter {
+    interface IoTask<T> {
+        T run() throws IOException;
+    }
+
+    interface IoAction {
+        void run() throws IOException;
+    }
+
+    private static final class Job {
+        final String key; // non-null for a coalescing write
+        final IoTask<?> task;
+        final CompletableFuture<Object> done = new CompletableFuture<>();
+
+        Job(String key, IoTask<?> task) {
+            this.key = key;
+            this.task = task;
+        }
+    }
+
+    private final BlockingQueue<Job> queue;
+    private final Map<String, Job> queuedByKey = new HashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final IntConsumer pendingListener;
+    private final Thread worker;
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+    private volatile boolean closing;
+
+    // The listener sees the number of queued or running writes each time it changes
+    PersistenceWriter(int capacity, IntConsumer pendingListener) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.pendingListener = pendingListener;
+        this.worker = new Thread(this::writeLoop, "persistence-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Ordered work: runs after everything queued before it
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> submit(IoTask<T> task) {
+        return (CompletableFuture<T>) enqueue(new Job(null, task));
+    }
+
+    // A write that rereads current state when it runs. Repeated signals for the same key, while
+    // one is still waiting in the queue, share that single write and its future.
+    @SuppressWarnings("unchecked")
+    CompletableFuture<Void> markDirty(String key, IoAction write) {
+        synchronized (queuedByKey) {
+            Job queued = queuedByKey.get(key);
+            if (queued != null) return (CompletableFuture<Void>) (CompletableFuture<?>) queued.done;
+            Job job = new Job(key, () -> {
+                write.run();
+                return null;
+            });
+            CompletableFuture<?> done = enqueue(job);
+            if (!done.isDone()) queuedByKey.put(key, job);
+            return (CompletableFuture<Void>) done;
+        }
+    }
+
+    int pending() {
+        return pending.get();
+    }
+
+    // Stops taking new work from other threads and completes once the queue has drained. Work
+    // the writer queues for itself (follow-up writes) is still accepted.
+    CompletableFuture<Void> close() {
+        closing = true;
+        return stopped;
+    }
+
+    private CompletableFuture<Object> enqueue(Job job) {
+        if (closing && Thread.currentThread() != worker) {
+            job.done.completeExceptionally(new RejectedExecutionException("Persistence writer is shut down"));
+        } else if (!queue.offer(job)) {
+            // Bounded on purpose: the caller is told rather than blocked, which matters on the EDT
+            job.done.completeExceptionally(new RejectedExecutionException("Too many pending writes"));
+        } else {
+            pendingListener.accept(pending.incrementAndGet());
+        }
+        return job.done;
+    }
+
+    private void writeLoop() {
+        try {
+            while (!closing || !queue.isEmpty()) {
+                Job job = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (job == null) continue;
+                if (job.key != null) {
+                    synchronized (queuedByKey) {
+                        queuedByKey.remove(job.key, job); // later signals need a fresh write
+                    }
+                }
+                try {
+                    job.done.complete(job.task.run());
+                } catch (IOException | RuntimeException e) {
+                    job.done.completeExceptionally(e);
+                }
+                pendingListener.accept(pending.decrementAndGet());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped.complete(null);
+        }
+    }
+}
+
+// ======================================================
+// ✅ ID ALLOCATOR (BLOCK RESERVATION, PERSISTED HIGH-WATER MARK)
+// ======================================================
+class IdAllocator {
+    // One id series. A thread reserves a whole block with a single getAndAdd and then hands
+    // out ids from it with no shared writes at all.
+    static final class Sequence {
+        private final String name;
+        private final int first;                  // first id of the series
+        private final int blockSize;
+        private final int reserveAhead;           // how far the persisted mark runs ahead, in ids
+        private final IdAllocator owner;          // null for in-memory sequences
+        private final AtomicInteger unreserved;   // first id not yet in any thread's block
+        private volatile int persistedLimit;      // every id below this is covered by the file
+        private final ThreadLocal<int[]> block = ThreadLocal.withInitial(() -> new int[2]); // next, end
+
+        private Sequence(String name, int first, int blockSize, int reserveAhead, IdAllocator owner) {
+            this.name = name;
+            this.first = first;
+            this.blockSize = blockSize;
+            this.reserveAhead = reserveAhead;
+            this.owner = owner;
+            this.unreserved = new AtomicInteger(first);
+            this.persistedLimit = owner == null ? Integer.MAX_VALUE : first;
+        }
+
+        static Sequence inMemory(int first, int blockSize) {
+            return new Sequence("memory", first, blockSize, 0, null);
+        }
+
+        int next() {
+            int[] b = block.get();
+            if (b[0] == b[1]) {
+                int start = unreserved.getAndAdd(blockSize);
+                // Never hand out an id the file does not already cover, or a crash could reuse it.
+                // A failed write skips this block; the next reservation tries again.
+                if (start + blockSize > persistedLimit) {
+                    try {
+                        owner.persistUpTo(this, start + blockSize);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Cannot reserve " + name + " ids in " + owner.file, e);
+                    }
+                }
+                b[0] = start;
+                b[1] = start + blockSize;
+            }
+            return b[0]++;
+        }
+
+        // The id this thread would get next, for display only
+        int peek() {
+            int[] b = block.get();
+            return b[0] < b[1] ? b[0] : unreserved.get();
+        }
+
+        // Start-up only, before any id is handed out: resumes right after the highest id the
+        // data holds, below the persisted mark if need be. The mark only has to stay above it.
+        void resumeAfter(int maxUsed) {
+            unreserved.set(Math.max(first, maxUsed + 1));
+        }
+    }
+
+    final Sequence customers;
+    final Sequence accounts;
+    final Sequence transactions;
+
+    private final File file;
+    private final ReentrantLock lock = new ReentrantLock(); // persistUpTo syncs ids.csv mid-posting
+
+    IdAllocator(String path) {
+        this.file = new File(path);
+        // The persisted mark runs ahead of the ids handed out, so a restart that resumes at the
+        // mark skips the ids in between. Callers that can see the data resume after its highest
+        // id instead (Sequence.resumeAfter); the mark alone is only the fallback. Transactions
+        // reserve 64K ids per file sync, customers and accounts 16.
+        customers = new Sequence("customer", 1001, 1, 16, this);
+        accounts = new Sequence("account", 5001, 1, 16, this);
+        transactions = new Sequence("transaction", 10001, 64, 1 << 16, this);
+    }
+
+    // Reads the persisted marks; kept out of the constructor so callers choose the thread
+    void load() {
+        lock.lock();
+        try {
+            int[] marks = {customers.unreserved.get(), accounts.unreserved.get(), transactions.unreserved.get()};
+            if (file.exists()) {
+                try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        String[] parts = line.split(",");
+                        if (parts.length != 2) continue;
+                        int slot = "customer".equals(parts[0]) ? 0 : "account".equals(parts[0]) ? 1
+                                : "transaction".equals(parts[0]) ? 2 : -1;
+                        if (slot >= 0) marks[slot] = Integer.parseInt(parts[1].trim());
+                    }
+                } catch (IOException | NumberFormatException ignored) {
+                    // Resumed from the data alone
+                }
+            }
+            Sequence[] all = {customers, accounts, transactions};
+            for (int i = 0; i < all.length; i++) {
+                all[i].unreserved.set(marks[i]);
+                all[i].persistedLimit = marks[i];
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void persistUpTo(Sequence sequence, int needed) throws IOException {
+        lock.lock();
+        try {
+            if (needed <= sequence.persistedLimit) return; // another thread got here first
+            int previous = sequence.persistedLimit;
+            sequence.persistedLimit = needed + sequence.reserveAhead;
+            try {
+                write();
+            } catch (IOException e) {
+                sequence.persistedLimit = previous;
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write() throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            String body = customers.name + "," + customers.persistedLimit + "\n"
+                    + accounts.name + "," + accounts.persistedLimit + "\n"
+                    + transactions.name + "," + transactions.persistedLimit + "\n";
+            out.write(body.getBytes(StandardCharsets.US_ASCII));
+            out.getFD().sync();
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
+
+// ======================================================
+// ✅ BATCH POSTING (--post-batch)
+// ======================================================
+class BatchPosting {
+    // One line of the input file: DEPOSIT,account,amount / WITHDRAWAL,account,amount /
+    // TRANSFER,source,destination,amount
+    private static final class Line {
+        final int lineNo;
+        String type;
+        int accountId, destId;
+        long amount;
+        String error;                     // set when the line could not be parsed
+        PostingEngine.PostingResult result;
+
+        Line(int lineNo) {
+            this.lineNo = lineNo;
+        }
+    }
+
+    private final AccountStore accountStore;
+    private final MappedAccountStore mappedAccountStore; // null unless accounts are kept in accounts.dat
+    private final SegmentedTransactionStore transactionStore;
+    private final IdAllocator ids;
+
+    BatchPosting(AccountStore accountStore, MappedAccountStore mappedAccountStore,
+                 SegmentedTransactionStore transactionStore, IdAllocator ids) {
+        this.accountStore = accountStore;
+        this.mappedAccountStore = mappedAccountStore;
+        this.transactionStore = transactionStore;
+        this.ids = ids;
+    }
+
+    void run(File input, File report) throws IOException {
+        List<BankingManagementSystem.Account> accounts = mappedAccountStore != null
+                ? mappedAccountStore.loadAll() : accountStore.load();
+        transactionStore.load();
+        ids.load();
+        ids.transactions.resumeAfter(transactionStore.maxTransactionId());
+
+        // Nothing is persisted per posting; everything is written once at the end
+        PostingEngine engine = new PostingEngine(ids.transactions, (changed, posted) -> CompletableFuture.completedFuture(null));
+        for (BankingManagementSystem.Account a : accounts) engine.register(a);
+
+        List<Line> lines = parse(input);
+        long start = System.nanoTime();
+        try {
+            partition(lines).parallelStream().forEach(part -> {
+                for (Line line : part) line.result = post(engine, line);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // ids.csv could not cover the ids; nothing has been written yet
+        }
+        long posted = System.nanoTime();
+
+        // Transactions go out in input-line order, then the account state in a single pass
+        List<BankingManagementSystem.Transaction> records = new ArrayList<>();
+        IntHashMap<BankingManagementSystem.Account> changed = new IntHashMap<>();
+        int ok = 0;
+        for (Line line : lines) {
+            if (line.result == null || !line.result.isSuccess()) continue;
+            ok++;
+            for (BankingManagementSystem.Transaction t : line.result.transactions) {
+                records.add(t);
+                changed.put(t.accountId, engine.find(t.accountId));
+            }
+        }
+        // Balances are on disk before the transactions that explain them: a crash in between
+        // loses history lines, never money
+        if (mappedAccountStore != null) {
+            for (BankingManagementSystem.Transaction t : records) {
+                mappedAccountStore.writeBalance(t.accountId, changed.get(t.accountId).balance);
+            }
+            mappedAccountStore.close();
+        } else if (changed.size() > 0) {
+            accountStore.checkpoint(accounts);
+        }
+        try {
+            transactionStore.appendAll(records).join();
+        } catch (CompletionException e) {
+            throw new IOException("Writing transactions failed", e.getCause());
+        }
+        long persisted = System.nanoTime();
+
+        writeReport(lines, report);
+        double postingSeconds = (posted - start) / 1e9;
+        System.out.printf("%d lines: %d posted, %d rejected, %d transactions, %d accounts changed%n",
+                lines.size(), ok, lines.size() - ok, records.size(), changed.size());
+        System.out.printf("posting %.2f s (%.0f lines/sec), persistence %.2f s, report: %s%n",
+                postingSeconds, lines.size() / Math.max(postingSeconds, 1e-9), (persisted - posted) / 1e9, report.getPath());
+    }
+
+    private static List<Line> parse(File input) throws IOException {
+        List<Line> lines = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(input))) {
+            String text;
+            int lineNo = 0;
+            while ((text = br.readLine()) != null) {
+                lineNo++;
+                if (text.trim().isEmpty()) continue;
+                Line line = new Line(lineNo);
+                String[] p = text.split(",");
+                try {
+                    line.type = p[0].trim().toUpperCase();
+                    line.accountId = Integer.parseInt(p[1].trim());
+                    if ("TRANSFER".equals(line.type) && p.length == 4) {
+                        line.destId = Integer.parseInt(p[2].trim());
+                        line.amount = Money.parse(p[3]);
+                    } else if (("DEPOSIT".equals(line.type) || "WITHDRAWAL".equals(line.type)) && p.length == 3) {
+                        line.amount = Money.parse(p[2]);
+                    } else {
+                        line.error = "INVALID_LINE";
+                    }
+                } catch (RuntimeException e) {
+                    line.error = "INVALID_LINE";
+                }
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    // Lines that share an account, directly or through a chain of transfers, land in the same
+    // partition and keep their file order; separate partitions have no account in common.
+    private static List<List<Line>> partition(List<Line> lines) {
+        int[] parent = new int[lines.size()];
+        for (int i = 0; i < parent.length; i++) parent[i] = i;
+        IntHashMap<Integer> lastLineOf = new IntHashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            Line line = lines.get(i);
+            if (line.error != null) continue;
+            link(parent, lastLineOf, line.accountId, i);
+            if ("TRANSFER".equals(line.type)) link(parent, lastLineOf, line.destId, i);
+        }
+
+        IntHashMap<List<Line>> byRoot = new IntHashMap<>();
+        List<List<Line>> partitions = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).error != null) continue;
+            List<Line> part = byRoot.get(find(parent, i));
+            if (part == null) {
+                part = new ArrayList<>();
+                byRoot.put(find(parent, i), part);
+                partitions.add(part);
+            }
+            part.add(lines.get(i));
+        }
+        return partitions;
+    }
+
+    private static void link(int[] parent, IntHashMap<Integer> lastLineOf, int accountId, int lineIndex) {
+        Integer previous = lastLineOf.get(accountId);
+        if (previous != null) parent[find(parent, previous)] = find(parent, lineIndex);
+        lastLineOf.put(accountId, lineIndex);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static PostingEngine.PostingResult post(PostingEngine engine, Line line) {
+        switch (line.type) {
+            case "DEPOSIT": return engine.deposit(line.accountId, line.amount);
+            case "WITHDRAWAL": return engine.withdraw(line.accountId, line.amount);
+            default: return engine.transfer(line.accountId, line.destId, line.amount);
+        }
+    }
+
+    // line,status,balance,counterparty balance,transaction ids
+    private static void writeReport(List<Line> lines, File report) throws IOException {
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(report))) {
+            for (Line line : lines) {
+                bw.write(Integer.toString(line.lineNo));
+                bw.write(',');
+                if (line.error != null) {
+                    bw.write(line.error + ",,,");
+                } else {
+                    PostingEngine.PostingResult r = line.result;
+                    bw.write(r.status.name());
+                    bw.write(',');
+                    bw.write(Money.format(r.balance));
+                    bw.write(',');
+                    if ("TRANSFER".equals(line.type) && r.isSuccess()) bw.write(Money.format(r.counterpartyBalance));
+                    bw.write(',');
+                    for (int i = 0; i < r.transactions.size(); i++) {
+                        if (i > 0) bw.write(' ');
+                        bw.write(Integer.toString(r.transactions.get(i).transactionId));
+                    }
+                }
+                bw.newLine();
+            }
+        }
+    }
+}
+
+// ======================================================
+// ✅ TRANSFER STRESS RUN (--stress-transfers)
+// ======================================================
+class TransferStress {
+    private static final long OPENING_BALANCE = 10_000_00; // paise
+
+    // Hammers a small hot set of accounts with random transfers in both directions, then
+    // checks that no money was created or lost and that no thread is stuck on a lock
+    static void run(int threads, int hotAccounts, int seconds) throws InterruptedException {
+        PostingEngine engine = new PostingEngine((changed, posted) -> CompletableFuture.completedFuture(null));
+        for (int i = 0; i < hotAccounts; i++) {
+            engine.register(new BankingManagementSystem.Account(5001 + i, 1001, CodeDictionary.SAVINGS, OPENING_BALANCE, CodeDictionary.ACTIVE, 1_704_067_200_000L));
+        }
+        long expectedTotal = OPENING_BALANCE * hotAccounts;
+
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder posted = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!stop.get()) {
+                    int source = 5001 + random.nextInt(hotAccounts);
+                    int dest = 5001 + random.nextInt(hotAccounts);
+                    if (source == dest) continue;
+                    if (engine.transfer(source, dest, 1 + random.nextInt(50_000)).isSuccess()) posted.increment();
+                    else rejected.increment();
+                }
+            }, "stress-" + i);
+            workers[i].start();
+        }
+
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        stop.set(true);
+        for (Thread worker : workers) worker.join(5000);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long[] deadlocked = ManagementFactory.getThreadMXBean().findDeadlockedThreads();
+        long total = 0;
+        for (int i = 0; i < hotAccounts; i++) total += engine.find(5001 + i).balance;
+
+        System.out.printf("threads=%d accounts=%d transfers=%d rejected=%d (%.0f transfers/sec)%n",
+                threads, hotAccounts, posted.sum(), rejected.sum(), posted.sum() / elapsed);
+        System.out.printf("balance total: expected ₹%s, actual ₹%s -> %s%n",
+                Money.format(expectedTotal), Money.format(total), total == expectedTotal ? "OK" : "MISMATCH");
+        System.out.println("deadlocked threads: " + (deadlocked == null ? 0 : deadlocked.length));
+        if (total != expectedTotal || deadlocked != null) System.exit(1);
+    }
+}
+
+// ======================================================
+// ✅ POSTING BENCHMARK (--bench-postings)
+// ======================================================
+class PostingBenchmark {
+    private static final int MAX_MICROS = 100_000; // latencies above 100 ms share the last bucket
+    private static final int DEPOSIT = 0, WITHDRAW = 1, TRANSFER = 2;
+
+    // Runs a random mix (half transfers, a quarter each deposits and withdrawals) through the
+    // lock-based engine with an in-memory sink
+    static void run(int threads, int hotAccounts, int seconds) throws InterruptedException {
+        PostingEngine engine = new PostingEngine((changed, posted) -> CompletableFuture.completedFuture(null));
+        for (BankingManagementSystem.Account a : openAccounts(hotAccounts)) engine.register(a);
+        report("locks", threads, seconds, measure(threads, hotAccounts, seconds, (type, source, dest, amount) -> {
+            if (type == DEPOSIT) engine.deposit(source, amount);
+            else if (type == WITHDRAW) engine.withdraw(source, amount);
+            else engine.transfer(source, dest, amount);
+        }));
+    }
+
+    private interface Poster {
+        void post(int type, int source, int dest, long amount);
+    }
+
+    private static List<BankingManagementSystem.Account> openAccounts(int count) {
+        List<BankingManagementSystem.Account> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new BankingManagementSystem.Account(5001 + i, 1001, CodeDictionary.SAVINGS, 1_000_000_00, CodeDictionary.ACTIVE, 1_704_067_200_000L));
+        }
+        return list;
+    }
+
+    // Returns a merged histogram of per-posting latency in microseconds
+    private static long[] measure(int threads, int hotAccounts, int seconds,
+                                  Poster poster) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        long[][] histograms = new long[threads][MAX_MICROS + 1];
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            long[] histogram = histograms[i];
+            workers[i] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!stop.get()) {
+                    int roll = random.nextInt(4);
+                    int type = roll < 2 ? TRANSFER : roll == 2 ? DEPOSIT : WITHDRAW;
+                    int source = 5001 + random.nextInt(hotAccounts);
+                    int dest = 5001 + random.nextInt(hotAccounts);
+                    long start = System.nanoTime();
+                    poster.post(type, source, dest, 1 + random.nextInt(50_000));
+                    histogram[(int) Math.min(MAX_MICROS, (System.nanoTime() - start) / 1000)]++;
+                }
+            }, "bench-" + i);
+            workers[i].start();
+        }
+        Thread.sleep(seconds * 1000L);
+        stop.set(true);
+        for (Thread worker : workers) worker.join();
+
+        long[] merged = new long[MAX_MICROS + 1];
+        for (long[] h : histograms) {
+            for (int i = 0; i <= MAX_MICROS; i++) merged[i] += h[i];
+        }
+        return merged;
+    }
+
+    private static void report(String name, int threads, int seconds, long[] histogram) {
+        long total = 0;
+        for (long n : histogram) total += n;
+        System.out.printf("%-11s threads=%d postings=%d (%.0f/sec)  p50=%dus p99=%dus p99.9=%dus max=%s%n",
+                name, threads, total, total / (double) seconds,
+                percentile(histogram, total, 0.50), percentile(histogram, total, 0.99), percentile(histogram, total, 0.999),
+                maxBucket(histogram));
+    }
+
+    private static int percentile(long[] histogram, long total, double p) {
+        long rank = (long) Math.ceil(total * p), seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) return i;
+        }
+        return MAX_MICROS;
+    }
+
+    private static String maxBucket(long[] histogram) {
+        for (int i = histogram.length - 1; i >= 0; i--) {
+            if (histogram[i] > 0) return i == MAX_MICROS ? ">" + MAX_MICROS + "us" : i + "us";
+        }
+        return "0us";
+    }
+}
+
+// ======================================================
+// ✅ TELLER SERVER (LOOPBACK TCP, VIRTUAL THREADS)
+// ======================================================
+// One request per line, one response per line ("OK ..." or "ERR <reason>"):
+//   LOGIN <user> <password>          -> OK
+//   ACCOUNT <id>                     -> OK <id,customer,type,balance,status,created>
+//   DEPOSIT <id> <amount>            -> OK <balance> <transaction id>
+//   WITHDRAW <id> <amount>           -> OK <balance> <transaction id>
+//   TRANSFER <from> <to> <amount>    -> OK <from balance> <to balance>
+//   HISTORY <id> [limit]             -> OK <n>, then n transaction CSV lines, newest last
+//   QUIT                             -> BYE
+// A posting that could not be written answers ERR WRITE_FAILED, never OK; a history whose
+// older segments could not be read answers ERR READ_FAILED rather than a partial list.
+class TellerServer {
+    interface Authenticator {
+        boolean check(String username, String password) throws IOException;
+    }
+
+    // Oldest first
+    interface HistorySource {
+        List<BankingManagementSystem.Transaction> forAccount(int accountId) throws IOException;
+    }
+
+    private static final int BACKLOG = 4096;
+
+    // Threads for connections, server and load-test side. Virtual threads where the runtime has
+    // them (JDK 21+), looked up reflectively so the file still compiles and runs on JDK 17,
+    // where each connection gets a platform daemon thread instead.
+    static final ThreadFactory CONNECTION_THREADS = connectionThreads();
+
+    private static ThreadFactory connectionThreads() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "teller-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return r -> {
+                Thread t = new Thread(r, "teller-" + count.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            };
+        }
+    }
+
+    private final ServerSocket serverSocket;
+    private final PostingEngine engine;
+    private final HistorySource history;
+    private final Authenticator authenticator;
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger peakConnections = new AtomicInteger();
+
+    TellerServer(int port, PostingEngine engine, HistorySource history,
+                 Authenticator authenticator) throws IOException {
+        this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        this.engine = engine;
+        this.history = history;
+        this.authenticator = authenticator;
+    }
+
+    void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "teller-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    int peakConnections() {
+        return peakConnections.get();
+    }
+
+    void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {}
+    }
+
+    // A thread per connection; on JDK 21+ a virtual one, so a terminal idling between requests
+    // costs no OS thread
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                CONNECTION_THREADS.newThread(() -> serve(socket)).start();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        peakConnections.accumulateAndGet(openConnections.incrementAndGet(), Math::max);
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            s.setTcpNoDelay(true);
+            String user = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] p = line.trim().split("\\s+");
+                String command = p[0].toUpperCase();
+                String response;
+                if ("QUIT".equals(command)) {
+                    out.write("BYE\n");
+                    out.flush();
+                    break;
+                } else if ("LOGIN".equals(command)) {
+                    boolean ok = p.length == 3 && authenticator.check(p[1], p[2]);
+                    if (ok) user = p[1];
+                    response = ok ? "OK" : "ERR INVALID_CREDENTIALS";
+                } else if (user == null) {
+                    response = "ERR NOT_LOGGED_IN";
+                } else {
+                    response = handle(command, p);
+                }
+                out.write(response);
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // Client went away
+        } finally {
+            openConnections.decrementAndGet();
+        }
+    }
+
+    private String handle(String command, String[] p) {
+        try {
+            switch (command) {
+                case "ACCOUNT": {
+                    BankingManagementSystem.Account a = engine.find(Integer.parseInt(p[1]));
+                    return a == null ? "ERR ACCOUNT_NOT_FOUND" : "OK " + a.toCSV();
+                }
+                case "DEPOSIT":
+                    return single(engine.deposit(Integer.parseInt(p[1]), Money.parse(p[2])));
+                case "WITHDRAW":
+                    return single(engine.withdraw(Integer.parseInt(p[1]), Money.parse(p[2])));
+                case "TRANSFER": {
+                    PostingEngine.PostingResult r = engine.transfer(Integer.parseInt(p[1]), Integer.parseInt(p[2]), Money.parse(p[3]));
+                    return r.isSuccess() ? "OK " + Money.format(r.balance) + " " + Money.format(r.counterpartyBalance) : "ERR " + r.status;
+                }
+                case "HISTORY": {
+                    int accountId = Integer.parseInt(p[1]);
+                    if (engine.find(accountId) == null) return "ERR ACCOUNT_NOT_FOUND";
+                    List<BankingManagementSystem.Transaction> records;
+                    try {
+                        records = history.forAccount(accountId);
+                    } catch (IOException e) {
+                        return "ERR READ_FAILED";
+                    }
+                    int limit = p.length > 2 ? Integer.parseInt(p[2]) : records.size();
+                    if (limit < 0) return "ERR BAD_REQUEST";
+                    int from = Math.max(0, records.size() - limit);
+                    StringBuilder sb = new StringBuilder("OK ").append(records.size() - from);
+                    for (int i = from; i < records.size(); i++) sb.append('\n').append(records.get(i).toCSV());
+                    return sb.toString();
+                }
+                default:
+                    return "ERR UNKNOWN_COMMAND";
+            }
+        } catch (UncheckedIOException e) {
+            return "ERR WRITE_FAILED"; // applied in memory but not on disk; never reported as OK
+        } catch (RuntimeException e) {
+            return "ERR BAD_REQUEST";
+        }
+    }
+
+    private static String single(PostingEngine.PostingResult r) {
+        return r.isSuccess()
+                ? "OK " + Money.format(r.balance) + " " + r.transactions.get(0).transactionId
+                : "ERR " + r.status;
+    }
+}
+
+// ======================================================
+// ✅ TELLER LOAD TEST (--teller-load)
+// ======================================================
+class TellerLoadTest {
+    // Opens every connection and logs it in before any traffic starts, so the server really holds
+    // all of them at once; then each connection sends its requests back to back. Without a port,
+    // an in-process server over synthetic accounts is started first.
+    static void run(int connections, int requestsEach, Integer port, String user, String password) throws Exception {
+        int accountCount = 1000;
+        TellerServer local = null;
+        if (port == null) {
+            TransactionIndex index = new TransactionIndex();
+            PostingEngine engine = new PostingEngine((changed, posted) -> {
+                for (BankingManagementSystem.Transaction t : posted) index.add(t);
+                return CompletableFuture.completedFuture(null);
+            });
+            for (int i = 0; i < accountCount; i++) {
+                engine.register(new BankingManagementSystem.Account(5001 + i, 1001, CodeDictionary.SAVINGS, 1_000_000_00, CodeDictionary.ACTIVE, 1_704_067_200_000L));
+            }
+            local = new TellerServer(0, engine, index::forAccount, (u, p) -> u.equals(user) && p.equals(password));
+            local.start();
+            port = local.port();
+        }
+
+        CountDownLatch connected = new CountDownLatch(connections);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+        AtomicInteger latencyCount = new AtomicInteger();
+        long[] latencies = new long[connections * requestsEach];
+        int serverPort = port;
+        List<Thread> clients = new ArrayList<>(connections);
+        for (int c = 0; c < connections; c++) {
+            Thread client = TellerServer.CONNECTION_THREADS.newThread(() -> {
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverPort);
+                     BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                     Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+                    socket.setTcpNoDelay(true);
+                    boolean loggedIn = "OK".equals(request(in, out, "LOGIN " + user + " " + password));
+                    connected.countDown();
+                    if (!loggedIn) {
+                        failures.addAndGet(requestsEach);
+                        return;
+                    }
+                    go.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < requestsEach; i++) {
+                        int account = 5001 + random.nextInt(accountCount);
+                        int roll = random.nextInt(4);
+                        String request = roll == 0 ? "ACCOUNT " + account
+                                : roll == 1 ? "DEPOSIT " + account + " " + (1 + random.nextInt(500))
+                                : roll == 2 ? "TRANSFER " + account + " " + (5001 + random.nextInt(accountCount)) + " " + (1 + random.nextInt(500))
+                                : "HISTORY " + account + " 5";
+                        long start = System.nanoTime();
+                        String response = request(in, out, request);
+                        if (response.startsWith("OK ") && request.startsWith("HISTORY")) {
+                            int lines = Integer.parseInt(response.substring(3));
+                            for (int k = 0; k < lines; k++) in.readLine();
+                        }
+                        latencies[latencyCount.getAndIncrement()] = System.nanoTime() - start;
+                        // Business rejections (same account, insufficient funds) are answers, not failures
+                        if (response.equals("ERR SAME_ACCOUNT") || response.equals("ERR INSUFFICIENT_FUNDS")) rejections.incrementAndGet();
+                        else if (!response.startsWith("OK")) failures.incrementAndGet();
+                    }
+                    request(in, out, "QUIT");
+                } catch (IOException | InterruptedException e) {
+                    failures.incrementAndGet();
+                    connected.countDown();
+                }
+            });
+            client.start();
+            clients.add(client);
+        }
+
+        connected.await();
+        System.out.printf("%d connections open and logged in%s%n", connections,
+                local != null ? " (server peak " + local.peakConnections() + ")" : "");
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread client : clients) client.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int n = latencyCount.get();
+        long[] sorted = Arrays.copyOf(latencies, n);
+        Arrays.sort(sorted);
+        System.out.printf("%d requests in %.2f s (%.0f req/sec), rejected=%d, failures=%d%n",
+                n, seconds, n / seconds, rejections.get(), failures.get());
+        if (n > 0) {
+            System.out.printf("latency p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                    sorted[n / 2] / 1e6, sorted[(int) Math.min(n - 1, (long) Math.ceil(n * 0.99))] / 1e6, sorted[n - 1] / 1e6);
+        }
+        if (local != null) local.close();
+    }
+
+    private static String request(BufferedReader in, Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+        String response = in.readLine();
+        return response == null ? "" : response;
+    }
+}
+
+// ======================================================
+// ✅ DASHBOARD AGGREGATION BENCHMARK (--bench-dashboard)
+// ======================================================
+class DashboardBenchmark {
+    private static final int ROUNDS = 10;
+
+    // Sums the same random balances three ways: the heap Account list streamed the way the
+    // dashboard used to, the double-rupee column the balances used to be, and the paise
+    // column of AccountTable. The long sum is exact, so the double total is also checked
+    // against it.
+    static void run(int accountCount) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<BankingManagementSystem.Account> accounts = new ArrayList<>(accountCount);
+        double[] rupees = new double[accountCount];
+        AccountTable table = new AccountTable();
+        for (int i = 0; i < accountCount; i++) {
+            long paise = random.nextLong(100_000_000_00L); // up to ₹10 crore
+            BankingManagementSystem.Account a = new BankingManagementSystem.Account(
+                    MappedAccountStore.FIRST_ACCOUNT_ID + i, 1001, CodeDictionary.SAVINGS, paise, CodeDictionary.ACTIVE, 1_704_067_200_000L);
+            accounts.add(a);
+            rupees[i] = paise / 100.0;
+            table.put(a.accountId, a.customerId, a.accountType, paise, a.status, a.createdDate);
+        }
+
+        long exact = table.totalBalancePaise();
+        long[] streamed = new long[1];
+        double[] summed = new double[1];
+        long[] total = new long[1];
+        report("Account list stream", time(() -> streamed[0] = accounts.stream().mapToLong(a -> a.balance).sum()));
+        report("double[] rupees", time(() -> {
+            double sum = 0;
+            for (double r : rupees) sum += r;
+            summed[0] = sum;
+        }));
+        report("long[] paise", time(() -> total[0] = table.totalBalancePaise()));
+
+        System.out.printf("accounts=%d exact total ₹%s, double total ₹%.2f (off by %d paise)%n",
+                accountCount, Money.format(exact), summed[0], Math.round(summed[0] * 100) - exact);
+        if (total[0] != exact || streamed[0] != exact) System.exit(1);
+    }
+
+    // Best of several rounds in milliseconds, after a warm-up round
+    private static double time(Runnable sum) {
+        sum.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            sum.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    private static void report(String name, double millis) {
+        System.out.printf("%-20s %8.2f ms%n", name, millis);
+    }
+}
+
+// ======================================================
+// ✅ ACCOUNT MEMORY BENCHMARK (--bench-accounts)
+// ======================================================
+class AccountMemoryBenchmark {
+    // Loads the same generated accounts.csv as a List<Account> (the path the window uses) and
+    // as an AccountTable, and reports retained heap per account, the GC time spent while
+    // loading and a forced full collection with the result still live. Run each layout in its
+    // own JVM for cleaner figures: --bench-accounts <accounts> list|table
+    static void run(int accountCount, String only) throws IOException {
+        File file = File.createTempFile("bench-accounts", ".csv");
+        file.deleteOnExit();
+        try {
+            RecordEncoder rows = new RecordEncoder(1 << 16);
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                for (int i = 0; i < accountCount; i++) {
+                    rows.account(new BankingManagementSystem.Account(MappedAccountStore.FIRST_ACCOUNT_ID + i, 1001 + i / 2,
+                            i % 3 == 0 ? CodeDictionary.CURRENT : CodeDictionary.SAVINGS, 1_000_00L + i, CodeDictionary.ACTIVE,
+                            1_704_067_200_000L + i));
+                    if (rows.length() >= 1 << 16) rows.flushTo(out);
+                }
+                rows.flushTo(out);
+            }
+            if (only == null || only.equals("list")) {
+                measure("List<Account>", accountCount, () -> CsvParser.readAccounts(file));
+            }
+            if (only == null || only.equals("table")) {
+                measure("AccountTable", accountCount, () -> AccountTable.loadCsv(file));
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private interface Load {
+        Object load() throws IOException;
+    }
+
+    private static void measure(String name, int accountCount, Load load) throws IOException {
+        long before = usedAfterGc();
+        long gcMillis = gcMillis();
+        long start = System.nanoTime();
+        Object loaded = load.load();
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+        long loadGcMillis = gcMillis() - gcMillis;
+
+        long fullGcStart = System.nanoTime();
+        long retained = usedAfterGc() - before;
+        long fullGcMillis = (System.nanoTime() - fullGcStart) / 1_000_000;
+        System.out.printf("%-14s %6.1f bytes/account  load %6d ms (GC %5d ms)  full GC with live set %5d ms%n",
+                name, retained / (double) accountCount, loadMillis, loadGcMillis, fullGcMillis);
+        Objects.requireNonNull(loaded); // keeps the result reachable through the full collection
+    }
+
+    private static long usedAfterGc() {
+        System.gc();
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (java.lang.management.GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
+
+// ======================================================
+// ✅ ACCOUNT TABLE (STRUCT OF ARRAYS)
+// ======================================================
+// Column-per-field account storage for multi-million-account datasets: no per-account
+// object, no per-account strings. Slot = accountId - 5001, as in the binary store. Only the
+// --bench-dashboard and --bench-accounts measurements use it so far; the window keeps its
+// Account list, which the table models and the posting engine share.
+class AccountTable {
+    private int[] ids = new int[0];          // 0 marks an empty slot
+    private int[] customerIds = new int[0];
+    private byte[] typeCodes = new byte[0];   // CodeDictionary.ACCOUNT_TYPES
+    private byte[] statusCodes = new byte[0]; // CodeDictionary.STATUSES
+    private long[] createdMillis = new long[0];
+    private long[] balancesPaise = new long[0];
+
+    // Streams an accounts.csv snapshot straight into the columns, then replays its WAL the
+    // way AccountStore.load() does, so the balances are current
+    static AccountTable loadCsv(File file) throws IOException {
+        AccountTable table = new AccountTable();
+        CsvParser.forEachRow(file, row -> {
+            int accountId = row.nextInt();
+            int customerId = row.nextInt();
+            byte type = row.nextCode(CodeDictionary.ACCOUNT_TYPES);
+            long balance = row.nextPaise();
+            byte status = row.nextCode(CodeDictionary.STATUSES);
+            long created = row.nextTimestamp();
+            table.put(accountId, customerId, type, balance, status, created);
+        });
+        AccountStore.replayWal(file.getPath(), new AccountStore.RedoVisitor() {
+            @Override
+            public void newAccount(BankingManagementSystem.Account a) {
+                if (!table.contains(a.accountId)) {
+                    table.put(a.accountId, a.customerId, a.accountType, a.balance, a.status, a.createdDate);
+                }
+            }
+
+            @Override
+            public void balance(int accountId, long balancePaise) {
+                if (table.contains(accountId)) table.setBalancePaise(accountId, balancePaise);
+            }
+        });
+        return table;
+    }
+
+    void put(int accountId, int customerId, byte type, long balancePaise, byte status, long createdDate) {
+        int slot = slotOf(accountId);
+        ensureCapacity(slot + 1);
+        ids[slot] = accountId;
+        customerIds[slot] = customerId;
+        typeCodes[slot] = type;
+        statusCodes[slot] = status;
+        createdMillis[slot] = createdDate;
+        balancesPaise[slot] = balancePaise;
+    }
+
+    boolean contains(int accountId) {
+        int slot = accountId - MappedAccountStore.FIRST_ACCOUNT_ID;
+        return slot >= 0 && slot < ids.length && ids[slot] != 0;
+    }
+
+    void setBalancePaise(int accountId, long balancePaise) {
+        balancesPaise[existingSlot(accountId)] = balancePaise;
+    }
+
+    // A straight loop over a primitive column; empty slots hold zero balances
+    long totalBalancePaise() {
+        long total = 0;
+        for (long balance : balancesPaise) total += balance;
+        return total;
+    }
+
+    private void ensureCapacity(int slots) {
+        if (slots <= ids.length) return;
+        int capacity = Math.max(slots, Math.max(16, ids.length + (ids.length >> 1)));
+        ids = Arrays.copyOf(ids, capacity);
+        customerIds = Arrays.copyOf(customerIds, capacity);
+        typeCodes = Arrays.copyOf(typeCodes, capacity);
+        statusCodes = Arrays.copyOf(statusCodes, capacity);
+        createdMillis = Arrays.copyOf(createdMillis, capacity);
+        balancesPaise = Arrays.copyOf(balancesPaise, capacity);
+    }
+
+    private int existingSlot(int accountId) {
+        if (!contains(accountId)) throw new IllegalArgumentException("Unknown account " + accountId);
+        return accountId - MappedAccountStore.FIRST_ACCOUNT_ID;
+    }
+
+    private static int slotOf(int accountId) {
+        if (accountId < MappedAccountStore.FIRST_ACCOUNT_ID) {
+            throw new IllegalArgumentException("Account id " + accountId + " is below " + MappedAccountStore.FIRST_ACCOUNT_ID);
+        }
+        return accountId - MappedAccountStore.FIRST_ACCOUNT_ID;
+    }
+}
+
+// ======================================================
+// ✅ INT-KEYED HASH MAP & TRANSACTION INDEX
+// ======================================================
+// Open-addressing map keyed by a primitive int, so lookups never box the key
+class IntHashMap<V> {
+    private static final int FREE = 0; // key 0 is kept out of the table and stored separately
+
+    private int[] keys;
+    private Object[] values;
+    private int size, mask;
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    IntHashMap() {
+        this(16);
+    }
+
+    IntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        if (key == FREE) return hasZeroKey ? zeroValue : null;
+        int i = slot(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) return (V) values[i];
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) {
+        if (key == FREE) {
+            V old = zeroValue;
+            if (!hasZeroKey) size++;
+            hasZeroKey = true;
+            zeroValue = value;
+            return old;
+        }
+        int i = slot(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) grow();
+        return null;
+    }
+
+    V computeIfAbsent(int key, IntFunction<V> factory) {
+        V value = get(key);
+        if (value == null) {
+            value = factory.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(values, null);
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = null;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9; // Fibonacci hashing spreads sequential ids
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        mask = keys.length - 1;
+        size = hasZeroKey ? 1 : 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) put(oldKeys[i], (V) oldValues[i]);
+        }
+    }
+}
+
+// Lookup cost by table size (--bench-lookup): random hits on an IntHashMap of accounts, and
+// the list scan findAccount() used to do, which is only run while it stays affordable
+class LookupBenchmark {
+    private static final int LOOKUPS = 1_000_000;
+    private static final int SCAN_LIMIT = 100_000; // largest table the linear scan is timed on
+    private static final int ROUNDS = 5;
+
+    static void run(int maxAccounts) {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int n = 1_000; n <= maxAccounts; n *= 10) {
+            List<BankingManagementSystem.Account> accounts = new ArrayList<>(n);
+            IntHashMap<BankingManagementSystem.Account> byId = new IntHashMap<>();
+            for (int i = 0; i < n; i++) {
+                BankingManagementSystem.Account a = new BankingManagementSystem.Account(MappedAccountStore.FIRST_ACCOUNT_ID + i,
+                        1001, CodeDictionary.SAVINGS, 0, CodeDictionary.ACTIVE, 1_704_067_200_000L);
+                accounts.add(a);
+                byId.put(a.accountId, a);
+            }
+            int[] probes = new int[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) probes[i] = MappedAccountStore.FIRST_ACCOUNT_ID + random.nextInt(n);
+
+            double hashNanos = best(() -> {
+                long hits = 0;
+                for (int id : probes) if (byId.get(id) != null) hits++;
+                return hits;
+            }) / LOOKUPS;
+            String scan = "not run";
+            if (n <= SCAN_LIMIT) {
+                int scanned = Math.max(1, LOOKUPS / n); // keeps each scan round near the same work
+                scan = String.format("%.1f ns/lookup", best(() -> {
+                    long hits = 0;
+                    for (int p = 0; p < scanned; p++) {
+                        for (BankingManagementSystem.Account a : accounts) {
+                            if (a.accountId == probes[p]) {
+                                hits++;
+                                break;
+                            }
+                        }
+                    }
+                    return hits;
+                }) / scanned);
+            }
+            System.out.printf("accounts=%,11d  IntHashMap %6.1f ns/lookup  list scan %s%n", n, hashNanos, scan);
+        }
+    }
+
+    // Best of several rounds in nanoseconds, after a warm-up round; every lookup must hit
+    private static double best(Supplier<Long> pass) {
+        long expected = pass.get();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            long hits = pass.get();
+            best = Math.min(best, System.nanoTime() - start);
+            if (hits != expected) throw new IllegalStateException("Lookups disagree between rounds");
+        }
+        return best;
+    }
+}
+
+// In-memory transactions grouped by account, kept in posting order
+class TransactionIndex {
+    private final IntHashMap<List<BankingManagementSystem.Transaction>> byAccount = new IntHashMap<>();
+
+    synchronized void add(BankingManagementSystem.Transaction t) {
+        byAccount.computeIfAbsent(t.accountId, id -> new ArrayList<>()).add(t);
+    }
+
+    synchronized void rebuild(List<BankingManagementSystem.Transaction> transactions) {
+        byAccount.clear();
+        for (BankingManagementSystem.Transaction t : transactions) add(t);
+    }
+
+    synchronized List<BankingManagementSystem.Transaction> forAccount(int accountId) {
+        List<BankingManagementSystem.Transaction> list = byAccount.get(accountId);
+        return list == null ? Collections.emptyList() : new ArrayList<>(list);
+    }
+
+    synchronized int count(int accountId) {
+        List<BankingManagementSystem.Transaction> list = byAccount.get(accountId);
+        return list == null ? 0 : list.size();
+    }
+
+    // Up to limit entries below position end, newest first. Lists only grow at the tail,
+    // so a position stays valid while new postings arrive.
+    synchronized void newestFirst(int accountId, int end, int limit, List<BankingManagementSystem.Transaction> out) {
+        List<BankingManagementSystem.Transaction> list = byAccount.get(accountId);
+        if (list == null) return;
+        for (int i = end - 1; i >= Math.max(0, end - limit); i--) out.add(list.get(i));
+    }
+}
+
+// Walks one account's history newest first: the in-memory tail, then the older segments one
+// at a time. A page reads no more than it returns (plus at most one segment), so the first
+// page costs the same for ten entries as for ten million.
+class HistoryPager {
+    private final int accountId;
+    private final TransactionIndex index;
+    private final SegmentedTransactionStore store;
+    private int recentEnd;                       // in-memory entries at or past this were returned
+    private List<Integer> olderSegments;         // listed once the in-memory tail runs out
+    private List<BankingManagementSystem.Transaction> segment = Collections.emptyList();
+    private int segmentEnd;
+    private boolean exhausted;
+
+    HistoryPager(int accountId, TransactionIndex index, SegmentedTransactionStore store) {
+        this.accountId = accountId;
+        this.index = index;
+        this.store = store;
+        this.recentEnd = index.count(accountId);
+    }
+
+    List<BankingManagementSystem.Transaction> nextPage(int limit) throws IOException {
+        List<BankingManagementSystem.Transaction> page = new ArrayList<>(limit);
+        if (recentEnd > 0) {
+            index.newestFirst(accountId, recentEnd, limit, page);
+            recentEnd -= page.size();
+        }
+        while (page.size() < limit && !exhausted) {
+            if (segmentEnd == 0) {
+                if (olderSegments == null) olderSegments = store.olderSegments(accountId);
+                if (olderSegments.isEmpty()) {
+                    exhausted = true;
+                    break;
+                }
+                segment = store.segmentHistory(olderSegments.remove(0), accountId);
+                segmentEnd = segment.size();
+                continue;
+            }
+            page.add(segment.get(--segmentEnd));
+        }
+        return page;
+    }
+
+    boolean isExhausted() {
+        return exhausted;
+    }
+
+    int accountId() {
+        return accountId;
+    }
+}
+
+// ======================================================
+// ✅ CSV PARSER (BYTE LEVEL, CHUNKED)
+// ======================================================
+class CsvParser {
+    private static final long PARALLEL_THRESHOLD = 8L << 20; // larger files are split into chunks
+    private static final long MAX_CHUNK = 64L << 20;
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+        1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L
+    };
+
+    interface RowReader<T> {
+        T read(CsvParser row);
+    }
+
+    interface RowConsumer {
+        void accept(CsvParser row);
+    }
+
+    private final ByteBuffer buf;
+    private int pos;       // next unread byte of the current line
+    private int lineEnd;   // end of the current line's fields (before any '\r')
+    private int next;      // start of the following line
+
+    private CsvParser(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    static List<BankingManagementSystem.Customer> readCustomers(File file) throws IOException {
+        return read(file, row -> new BankingManagementSystem.Customer(
+                row.nextInt(), row.nextString(), row.nextString(), row.nextString(), row.nextString()));
+    }
+
+    static List<BankingManagementSystem.Account> readAccounts(File file) throws IOException {
+        return read(file, row -> new BankingManagementSystem.Account(
+                row.nextInt(), row.nextInt(), row.nextCode(CodeDictionary.ACCOUNT_TYPES),
+                row.nextPaise(), row.nextCode(CodeDictionary.STATUSES), row.nextTimestamp()));
+    }
+
+    static List<BankingManagementSystem.Transaction> readTransactions(File file) throws IOException {
+        return read(file, row -> new BankingManagementSystem.Transaction(
+                row.nextInt(), row.nextInt(), row.nextCode(CodeDictionary.TRANSACTION_TYPES),
+                row.nextPaise(), row.nextPaise(), row.nextTimestamp(), row.rest()));
+    }
+
+    // Maps the file and parses it; files above the threshold are cut at line boundaries
+    // and the chunks parsed on the common fork-join pool, keeping file order.
+    static <T> List<T> read(File file, RowReader<T> reader) throws IOException {
+        if (!file.exists()) return new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < PARALLEL_THRESHOLD) {
+                return parseChunk(channel, 0, size, reader);
+            }
+            List<long[]> chunks = split(channel, size);
+            List<List<T>> parts;
+            try {
+                parts = chunks.parallelStream().map(c -> {
+                    try {
+                        return parseChunk(channel, c[0], c[1], reader);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }).collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            int total = 0;
+            for (List<T> part : parts) total += part.size();
+            List<T> result = new ArrayList<>(total);
+            for (List<T> part : parts) result.addAll(part);
+            return result;
+        }
+    }
+
+    // Sequential pass that hands each row to the consumer without building row objects
+    static void forEachRow(File file, RowConsumer consumer) throws IOException {
+        if (!file.exists()) return;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (long[] chunk : split(channel, channel.size())) {
+                if (chunk[1] <= chunk[0]) continue;
+                CsvParser parser = new CsvParser(channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]));
+                while (parser.nextLine()) {
+                    try {
+                        consumer.accept(parser);
+                    } catch (RuntimeException ignored) {
+                        // Damaged row; carry on with the next line
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<long[]> split(FileChannel channel, long size) throws IOException {
+        long chunkSize = Math.min(MAX_CHUNK,
+                Math.max(PARALLEL_THRESHOLD, size / (4L * ForkJoinPool.getCommonPoolParallelism())));
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            // Move the cut just past the next newline
+            while (end < size) {
+                probe.clear();
+                int n = channel.read(probe, end);
+                if (n <= 0) {
+                    end = size;
+                    break;
+                }
+                int i = 0;
+                while (i < n && probe.get(i) != '\n') i++;
+                end += i;
+                if (i < n) {
+                    end++;
+                    break;
+                }
+            }
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static <T> List<T> parseChunk(FileChannel channel, long start, long end, RowReader<T> reader) throws IOException {
+        List<T> rows = new ArrayList<>();
+        if (end <= start) return rows;
+        CsvParser parser = new CsvParser(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        while (parser.nextLine()) {
+            try {
+                rows.add(reader.read(parser));
+            } catch (RuntimeException ignored) {
+                // Damaged row; carry on with the next line
+            }
+        }
+        return rows;
+    }
+
+    // Advances to the next non-blank line
+    private boolean nextLine() {
+        int limit = buf.limit();
+        while (next < limit) {
+            pos = next;
+            int end = pos;
+            while (end < limit && buf.get(end) != '\n') end++;
+            next = end + 1;
+            if (end > pos && buf.get(end - 1) == '\r') end--;
+            lineEnd = end;
+            for (int i = pos; i < end; i++) {
+                if (buf.get(i) > ' ') return true;
+            }
+        }
+        return false;
+    }
+
+    int nextInt() {
+        int end = fieldEnd();
+        int i = pos;
+        boolean negative = i < end && buf.get(i) == '-';
+        if (negative) i++;
+        if (i == end) throw new NumberFormatException("Empty number");
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (; i < end; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) throw new NumberFormatException("Bad digit in integer field");
+            value = value * 10 + d;
+            if (value > limit) throw new NumberFormatException("Integer field out of range");
+        }
+        skipField(end);
+        return (int) (negative ? -value : value);
+    }
+
+    // A money field as paise. Reads the "1500.50" form written by toCSV and the Double.toString
+    // forms of older files ("1500.0", "1.0E7") without allocating; anything not a whole number
+    // of paise, or too long for the fast path, goes through Money.parse and is rounded there.
+    long nextPaise() {
+        int end = fieldEnd();
+        int i = pos;
+        boolean negative = i < end && buf.get(i) == '-';
+        if (negative) i++;
+        long mantissa = 0;
+        int digits = 0, fractionDigits = 0, exponent = 0;
+        boolean fraction = false, anyDigit = false, fast = i < end;
+        for (; i < end && fast; i++) {
+            byte b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) digits++;
+                if (fraction) fractionDigits++;
+                anyDigit = true;
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else if ((b == 'E' || b == 'e') && anyDigit && i + 1 < end) {
+                int j = i + 1;
+                boolean negativeExp = buf.get(j) == '-';
+                if (negativeExp) j++;
+                if (j == end) fast = false; // "1E-": Money.parse rejects it
+                for (; j < end; j++) {
+                    int d = buf.get(j) - '0';
+                    if (d < 0 || d > 9 || exponent > 1000) {
+                        fast = false;
+                        break;
+                    }
+                    exponent = exponent * 10 + d;
+                }
+                if (negativeExp) exponent = -exponent;
+                i = end - 1;
+            } else {
+                fast = false;
+            }
+        }
+        if (fast && !anyDigit) throw new NumberFormatException("No digits in amount"); // "." or "-."
+        int scale = exponent - fractionDigits + 2; // power of ten that turns the mantissa into paise
+        long value;
+        if (fast && digits + Math.max(scale, 0) <= 17 && scale >= 0 && scale < POW10.length) {
+            value = mantissa * POW10[scale];
+        } else if (fast && digits <= 17 && scale < 0 && -scale < POW10.length && mantissa % POW10[-scale] == 0) {
+            value = mantissa / POW10[-scale]; // trailing zeros, e.g. "1500.000"
+        } else {
+            value = Money.parse(text(pos, end));
+            negative = false;
+        }
+        skipField(end);
+        return negative ? -value : value;
+    }
+
+    String nextString() {
+        int end = fieldEnd();
+        String value = text(pos, end);
+        skipField(end);
+        return value;
+    }
+
+    // Known names are matched in place; only a value new to the dictionary builds a string
+    byte nextCode(CodeDictionary dictionary) {
+        int end = fieldEnd();
+        String[] names = dictionary.names();
+        int code = -1;
+        for (int i = 0; i < names.length; i++) {
+            if (matches(names[i], end)) {
+                code = i;
+                break;
+            }
+        }
+        byte value = code >= 0 ? (byte) code : dictionary.code(text(pos, end));
+        skipField(end);
+        return value;
+    }
+
+    // Epoch millis, or a legacy "yyyy-MM-dd HH:mm:ss" local time, without building a string
+    long nextTimestamp() {
+        int end = fieldEnd();
+        long value;
+        if (end - pos == 19 && buf.get(pos + 4) == '-') {
+            int year = (int) digits(0, 4);
+            int month = (int) field(5, 1, 12);
+            int day = (int) field(8, 1, Timestamps.lengthOfMonth(year, month));
+            long days = Timestamps.epochDay(year, month, day);
+            value = Timestamps.fromLocalEpochSecond(days * 86400 + field(11, 0, 23) * 3600L + field(14, 0, 59) * 60L + field(17, 0, 59));
+        } else {
+            value = digits(0, end - pos); // empty reads as Timestamps.UNKNOWN
+        }
+        skipField(end);
+        return value;
+    }
+
+    // A two-digit date or time field, refused outside [min, max] ("2024-13-45")
+    private long field(int offset, int min, int max) {
+        long value = digits(offset, 2);
+        if (value < min || value > max) throw new DateTimeException("Timestamp field out of range: " + value);
+        return value;
+    }
+
+    private long digits(int offset, int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            int d = buf.get(pos + offset + i) - '0';
+            if (d < 0 || d > 9) throw new NumberFormatException("Bad digit in timestamp");
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    // Remainder of the line, commas included (free-text last column)
+    String rest() {
+        String value = pos < lineEnd ? text(pos, lineEnd) : "";
+        pos = lineEnd;
+        return value;
+    }
+
+    private int fieldEnd() {
+        if (pos > lineEnd) throw new IllegalStateException("Missing field");
+        int end = pos;
+        while (end < lineEnd && buf.get(end) != ',') end++;
+        return end;
+    }
+
+    private void skipField(int end) {
+        pos = end + 1;
+    }
+
+    private boolean matches(String candidate, int end) {
+        if (candidate.length() != end - pos) return false;
+        for (int i = 0; i < candidate.length(); i++) {
+            if (buf.get(pos + i) != candidate.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private String text(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
+
+// ======================================================
+// ✅ CSV LOAD BENCHMARK (--bench-load)
+// ======================================================
+class LoadBenchmark {
+    private static final int ROUNDS = 3;
+
+    // Writes a transactions file of the given size, then reads it back the way the loaders
+    // used to (BufferedReader, split, parse) and through CsvParser. Each reader has to come
+    // back with every row.
+    static void run(int rows) throws IOException {
+        File file = File.createTempFile("bench-load", ".csv");
+        file.deleteOnExit();
+        try {
+            RecordEncoder encoder = new RecordEncoder(1 << 16);
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                for (int i = 0; i < rows; i++) {
+                    encoder.transaction(new BankingManagementSystem.Transaction(10001 + i, 5001 + i % 100_000, CodeDictionary.DEPOSIT,
+                            1 + i % 1_000_000, 10_000_00L + i, 1_704_103_200_000L + i, "Cash Deposit"));
+                    if (encoder.length() >= 1 << 16) encoder.flushTo(out);
+                }
+                encoder.flushTo(out);
+            }
+            System.out.printf("rows=%d file=%.1f MB parallelism=%d%n", rows, file.length() / 1e6, ForkJoinPool.getCommonPoolParallelism());
+
+            report("BufferedReader+split", rows, time(rows, () -> {
+                List<BankingManagementSystem.Transaction> loaded = new ArrayList<>();
+                try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                    String line;
+                    while ((line = br.readLine()) != null) loaded.add(BankingManagementSystem.Transaction.fromCSV(line));
+                }
+                return loaded.size();
+            }));
+            report("CsvParser", rows, time(rows, () -> CsvParser.readTransactions(file).size()));
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private interface Load {
+        int rows() throws IOException;
+    }
+
+    // Best round in milliseconds, after a warm-up round
+    private static double time(int rows, Load load) throws IOException {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i <= ROUNDS; i++) {
+            long start = System.nanoTime();
+            int loaded = load.rows();
+            long elapsed = System.nanoTime() - start;
+            if (loaded != rows) throw new IOException("Read " + loaded + " of " + rows + " rows");
+            if (i > 0) best = Math.min(best, elapsed);
+        }
+        return best / 1e6;
+    }
+
+    private static void report(String name, int rows, double millis) {
+        System.out.printf("%-22s %9.1f ms %8.0f rows/ms%n", name, millis, rows / millis);
+    }
+}
+
+// ======================================================
+// ✅ RECORD ENCODER (REUSABLE BYTE BUFFER)
+// ======================================================
+// Writes CSV records, byte for byte the same as toCSV(), straight into a growable byte array.
+// Numbers are emitted digit by digit and text char by char, so once the buffer has grown to
+// size a record costs no allocation. Not thread-safe; callers keep one per writer.
+class RecordEncoder {
+    private static final byte[] DIGIT_PAIRS = new byte[200]; // "00" to "99", two digits per division
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[i * 2] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[i * 2 + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private byte[] buf;
+    private int len;
+
+    RecordEncoder() {
+        this(256);
+    }
+
+    RecordEncoder(int capacity) {
+        buf = new byte[capacity];
+    }
+
+    RecordEncoder reset() {
+        len = 0;
+        return this;
+    }
+
+    int length() {
+        return len;
+    }
+
+    byte[] array() {
+        return buf;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, len);
+    }
+
+    // Writes out what has been encoded so far and starts again
+    void flushTo(OutputStream out) throws IOException {
+        writeTo(out);
+        len = 0;
+    }
+
+    RecordEncoder customer(BankingManagementSystem.Customer c) {
+        number(c.id).comma().text(c.name).comma().text(c.email).comma().text(c.phone).comma().text(c.address);
+        return newline();
+    }
+
+    RecordEncoder account(BankingManagementSystem.Account a) {
+        number(a.accountId).comma().number(a.customerId).comma().text(a.accountTypeName()).comma()
+                .paise(a.balance).comma().text(a.statusName()).comma().number(a.createdDate);
+        return newline();
+    }
+
+    RecordEncoder transaction(BankingManagementSystem.Transaction t) {
+        number(t.transactionId).comma().number(t.accountId).comma().text(t.typeName()).comma()
+                .paise(t.amount).comma().paise(t.balanceAfter).comma().number(t.date).comma().text(t.description);
+        return newline();
+    }
+
+    RecordEncoder comma() {
+        return put((byte) ',');
+    }
+
+    RecordEncoder newline() {
+        return put((byte) '\n');
+    }
+
+    RecordEncoder put(byte b) {
+        ensure(1);
+        buf[len++] = b;
+        return this;
+    }
+
+    RecordEncoder number(long value) {
+        if (value == Long.MIN_VALUE) return text(Long.toString(value));
+        ensure(20);
+        byte[] b = buf;
+        int p = len;
+        if (value < 0) {
+            b[p++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long limit = 10; digits < 19 && value >= limit; limit *= 10) digits++;
+        int end = p + digits;
+        // Ids and most amounts fit an int, whose division by ten is cheaper
+        while (value > Integer.MAX_VALUE) {
+            b[--end] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        int v = (int) value;
+        while (v >= 100) {
+            int q = v / 100, r = (v - q * 100) * 2;
+            b[--end] = DIGIT_PAIRS[r + 1];
+            b[--end] = DIGIT_PAIRS[r];
+            v = q;
+        }
+        if (v >= 10) {
+            b[--end] = DIGIT_PAIRS[v * 2 + 1];
+            b[--end] = DIGIT_PAIRS[v * 2];
+        } else {
+            b[--end] = (byte) ('0' + v);
+        }
+        len = p + digits;
+        return this;
+    }
+
+    // Same text as Money.format
+    RecordEncoder paise(long paise) {
+        if (paise < 0) {
+            put((byte) '-');
+            paise = -paise;
+        }
+        number(paise / 100);
+        ensure(3);
+        int fraction = (int) (paise % 100) * 2;
+        buf[len] = '.';
+        buf[len + 1] = DIGIT_PAIRS[fraction];
+        buf[len + 2] = DIGIT_PAIRS[fraction + 1];
+        len += 3;
+        return this;
+    }
+
+    // UTF-8 without a CharsetEncoder; ASCII, the usual case, is one byte per char
+    RecordEncoder text(String s) {
+        int n = s.length();
+        ensure(n * 3);
+        byte[] b = buf;
+        int p = len;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                b[p++] = (byte) c;
+            } else if (c < 0x800) {
+                b[p++] = (byte) (0xC0 | c >> 6);
+                b[p++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[p++] = (byte) (0xF0 | cp >> 18);
+                b[p++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                b[p++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                b[p++] = (byte) (0x80 | cp & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                b[p++] = '?'; // unpaired surrogate, as String.getBytes would write it
+            } else {
+                b[p++] = (byte) (0xE0 | c >> 12);
+                b[p++] = (byte) (0x80 | c >> 6 & 0x3F);
+                b[p++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        len = p;
+        return this;
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(len + extra, buf.length * 2));
+    }
+}
+
+// ======================================================
+// ✅ ENCODER BENCHMARK (--bench-encode)
+// ======================================================
+class EncoderBenchmark {
+    private static final int ROUNDS = 5;
+
+    // Bytes allocated per record by the calling thread (the figure JMH's GC profiler reports
+    // as gc.alloc.rate.norm) and time per record, for toCSV().getBytes() and the encoder
+    static void run(int records) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        List<BankingManagementSystem.Transaction> transactions = new ArrayList<>(records);
+        List<BankingManagementSystem.Account> accounts = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            transactions.add(new BankingManagementSystem.Transaction(10001 + i, 5001 + i % 1000, CodeDictionary.DEPOSIT,
+                    1 + i % 1_000_000, 10_000_00L + i, 1_704_103_200_000L, "Cash Deposit"));
+            accounts.add(new BankingManagementSystem.Account(5001 + i, 1001, CodeDictionary.SAVINGS, 10_000_00L + i, CodeDictionary.ACTIVE, 1_704_103_200_000L));
+        }
+        OutputStream sink = OutputStream.nullOutputStream();
+        RecordEncoder encoder = new RecordEncoder();
+
+        measure("Transaction.toCSV", threads, records, () -> {
+            for (BankingManagementSystem.Transaction t : transactions) write(sink, (t.toCSV() + "\n").getBytes(StandardCharsets.UTF_8));
+        });
+        measure("encoder.transaction", threads, records, () -> {
+            for (BankingManagementSystem.Transaction t : transactions) write(sink, encoder.reset().transaction(t));
+        });
+        measure("Account.toCSV", threads, records, () -> {
+            for (BankingManagementSystem.Account a : accounts) write(sink, (a.toCSV() + "\n").getBytes(StandardCharsets.UTF_8));
+        });
+        measure("encoder.account", threads, records, () -> {
+            for (BankingManagementSystem.Account a : accounts) write(sink, encoder.reset().account(a));
+        });
+    }
+
+    private static void write(OutputStream out, byte[] data) {
+        try {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(OutputStream out, RecordEncoder encoder) {
+        try {
+            encoder.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Best round after a warm-up round
+    private static void measure(String name, com.sun.management.ThreadMXBean threads, int records, Runnable pass) {
+        pass.run();
+        long bestNanos = Long.MAX_VALUE, bestBytes = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            pass.run();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            bestBytes = Math.min(bestBytes, threads.getCurrentThreadAllocatedBytes() - bytes);
+        }
+        System.out.printf("%-20s %7.1f B/record %7.1f ns/record%n", name, bestBytes / (double) records, bestNanos / (double) records);
+    }
+}
+
+// ======================================================
+// ✅ APPEND LOG (DIRECT OR GROUP COMMIT)
+// ======================================================
+class AppendLog {
+    // Every append is forced before its future completes. By default that is one write and one
+    // fsync per append; -Dbank.groupCommit=true batches concurrent appends into one write + one
+    // fsync. The window and batch size trade latency for throughput.
+    static final boolean GROUP_COMMIT = Boolean.getBoolean("bank.groupCommit");
+    private static final long WINDOW_NANOS = TimeUnit.MICROSECONDS.toNanos(Long.getLong("bank.groupCommit.windowMicros", 2000));
+    private static final int BATCH_SIZE = Integer.getInteger("bank.groupCommit.batchSize", 256);
+
+    private final File file;
+    // Held across file writes. A lock rather than a monitor: a virtual thread (a teller
+    // connection) blocked in I/O inside synchronized would pin its carrier thread.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running = true;
+    private Thread committer;
+    private FileChannel channel; // owned by the committer thread
+
+    // Statistics, written by the committer thread only
+    private volatile long records, batches, bytes, totalLatencyNanos, maxLatencyNanos, firstCommitNanos, lastCommitNanos;
+
+    private static final class Pending {
+        final byte[] data;
+        final File rollTarget; // non-null for a roll request
+        final long enqueuedNanos = System.nanoTime();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(byte[] data, File rollTarget) {
+            this.data = data;
+            this.rollTarget = rollTarget;
+        }
+    }
+
+    AppendLog(File file) {
+        this.file = file;
+    }
+
+    CompletableFuture<Void> append(byte[] data) {
+        return append(data, data.length);
+    }
+
+    // The first length bytes of data. Written and forced before returning in direct mode, so
+    // the caller may reuse the array; only group commit, which queues the bytes, takes a copy.
+    CompletableFuture<Void> append(byte[] data, int length) {
+        if (!GROUP_COMMIT) {
+            lock.lock();
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                out.write(data, 0, length);
+                out.getChannel().force(false);
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return enqueue(new Pending(Arrays.copyOf(data, length), null));
+    }
+
+    // Moves the current file to target once every earlier append is on disk; later appends
+    // start a fresh file. An existing target is appended to, never replaced.
+    CompletableFuture<Void> rollTo(File target) {
+        if (!GROUP_COMMIT) {
+            lock.lock();
+            try {
+                rollInto(target);
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return enqueue(new Pending(null, target));
+    }
+
+    // Stops the committer once everything queued so far is written
+    void close() {
+        running = false;
+    }
+
+    String stats() {
+        long n = records, b = batches;
+        double seconds = (lastCommitNanos - firstCommitNanos) / 1e9;
+        return String.format("%s: %d records in %d batches (avg %.1f/batch), %d bytes, "
+                        + "latency avg %.2f ms / max %.2f ms, %.0f records/s",
+                file.getName(), n, b, b == 0 ? 0.0 : (double) n / b, bytes,
+                n == 0 ? 0.0 : totalLatencyNanos / 1e6 / n, maxLatencyNanos / 1e6,
+                seconds > 0 ? n / seconds : 0.0);
+    }
+
+    private CompletableFuture<Void> enqueue(Pending p) {
+        lock.lock();
+        try {
+            if (committer == null) {
+                committer = new Thread(this::commitLoop, "group-commit-" + file.getName());
+                committer.setDaemon(true);
+                committer.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+            }
+            queue.add(p);
+            return p.done;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void shutdown() {
+        running = false;
+        try {
+            committer.join(5000);
+        } catch (InterruptedException ignored) {}
+        if (records > 0) System.out.println("Group commit " + stats());
+    }
+
+    private void commitLoop() {
+        List<Pending> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                Pending roll = first.rollTarget != null ? first : null;
+                if (roll == null) {
+                    batch.add(first);
+                    long deadline = first.enqueuedNanos + WINDOW_NANOS;
+                    while (batch.size() < BATCH_SIZE) {
+                        long wait = deadline - System.nanoTime();
+                        Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                        if (next == null) break;
+                        if (next.rollTarget != null) {
+                            roll = next;
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    commit(batch);
+                    batch.clear();
+                }
+                if (roll != null) {
+                    roll(roll);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+        closeChannel();
+    }
+
+    private void commit(List<Pending> batch) {
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+            long size = 0;
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.wrap(batch.get(i).data);
+                size += buffers[i].remaining();
+            }
+            long written = 0;
+            while (written < size) {
+                written += channel.write(buffers);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            closeChannel();
+            for (Pending p : batch) p.done.completeExceptionally(e);
+            return;
+        }
+
+        long now = System.nanoTime();
+        long latency = 0, max = maxLatencyNanos;
+        for (Pending p : batch) {
+            long l = now - p.enqueuedNanos;
+            latency += l;
+            if (l > max) max = l;
+            bytes += p.data.length;
+            p.done.complete(null);
+        }
+        if (batches == 0) firstCommitNanos = batch.get(0).enqueuedNanos;
+        lastCommitNanos = now;
+        records += batch.size();
+        batches++;
+        totalLatencyNanos += latency;
+        maxLatencyNanos = max;
+    }
+
+    private void roll(Pending roll) {
+        closeChannel();
+        try {
+            rollInto(roll.rollTarget);
+            roll.done.complete(null);
+        } catch (IOException e) {
+            roll.done.completeExceptionally(e);
+        }
+    }
+
+    // A target left by an earlier roll whose follow-up failed (a snapshot that never landed)
+    // still holds records nothing else has, so the current file goes on its end. The copy is
+    // forced before the source is deleted; a crash in between only replays records twice.
+    private void rollInto(File target) throws IOException {
+        if (!file.exists()) return;
+        if (!target.exists()) {
+            Files.move(file.toPath(), target.toPath());
+            return;
+        }
+        TransactionJournal.truncateTornTail(target);
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long size = in.size();
+            long copied = 0;
+            while (copied < size) {
+                copied += in.transferTo(copied, size - copied, out);
+            }
+            out.force(false);
+        }
+        Files.delete(file.toPath());
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+        channel = null;
+    }
+}
+
+// ======================================================
+// ✅ TRANSACTION JOURNAL (APPEND-ONLY)
+// ======================================================
+class TransactionJournal {
+    private static final int MAX_RECORD_BYTES = 64 << 10; // longer unterminated tails are never records
+
+    private final File file;
+    private final AppendLog log;
+    private final ReentrantLock lock = new ReentrantLock(); // guards encoder; see AppendLog
+    private final RecordEncoder encoder = new RecordEncoder();
+
+    TransactionJournal(String path) {
+        this.file = new File(path);
+        this.log = new AppendLog(file);
+    }
+
+    // Reads every complete record. Every append ends in a newline, so an unterminated last
+    // line is a torn append, even one that still parses (cut inside the description), and is
+    // cut off so the next append starts on a clean line boundary.
+    List<BankingManagementSystem.Transaction> load() throws IOException {
+        List<BankingManagementSystem.Transaction> loaded = new ArrayList<>();
+        if (!file.exists()) return loaded;
+
+        truncateTornTail(file);
+        // Damaged records are skipped by the parser instead of losing the rest of the history
+        loaded.addAll(CsvParser.readTransactions(file));
+        return loaded;
+    }
+
+    // Completes once the records are written and forced
+    CompletableFuture<Void> append(BankingManagementSystem.Transaction... records) {
+        lock.lock();
+        try {
+            if (records.length == 0) return CompletableFuture.completedFuture(null);
+            encoder.reset();
+            for (BankingManagementSystem.Transaction t : records) {
+                encoder.transaction(t);
+            }
+            // A single write per posting keeps the records of one transfer together on disk
+            return log.append(encoder.array(), encoder.length());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() {
+        log.close();
+    }
+
+    // Writes every record back in the current format, through a synced temp file and a rename
+    int rewrite() throws IOException {
+        List<BankingManagementSystem.Transaction> records = load();
+        File tmp = new File(file.getPath() + ".tmp");
+        RecordEncoder rows = new RecordEncoder(1 << 16);
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            for (BankingManagementSystem.Transaction t : records) {
+                rows.transaction(t);
+                if (rows.length() >= 1 << 16) rows.flushTo(out);
+            }
+            rows.flushTo(out);
+            out.getFD().sync();
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return records.size();
+    }
+
+    // Journals and redo logs are only ever written by this program, so any unterminated last
+    // line is torn
+    static void truncateTornTail(File file) throws IOException {
+        truncateTornTail(file, line -> false);
+    }
+
+    // An unterminated last line that still reads as a whole record (a file edited by hand
+    // without a trailing newline) is kept and terminated; anything else is cut off.
+    static void truncateTornTail(File file, Predicate<String> complete) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long length = raf.length();
+            long end = length;
+            while (end > 0) {
+                raf.seek(end - 1);
+                if (raf.read() == '\n') break;
+                end--;
+            }
+            if (end == length) return;
+            if (length - end <= MAX_RECORD_BYTES) {
+                byte[] tail = new byte[(int) (length - end)];
+                raf.seek(end);
+                raf.readFully(tail);
+                if (complete.test(new String(tail, StandardCharsets.UTF_8).strip())) {
+                    raf.write('\n');
+                    return;
+                }
+            }
+            raf.setLength(end);
+        }
+    }
+
+    // Only for the legacy transactions.csv, which may have been edited by hand. A line cut
+    // before the comma that opens the free-text description never counts as complete; one cut
+    // inside the description can't be told apart from a shorter description.
+    static boolean isCompleteRecord(String line) {
+        if (line.split(",", 7).length < 7) return false;
+        try {
+            BankingManagementSystem.Transaction.fromCSV(line);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
+
+// ======================================================
+// ✅ SEGMENTED TRANSACTION STORE
+// ======================================================
+class SegmentedTransactionStore {
+    static final int SEGMENT_SIZE = 100_000;    // records per segment file
+    private static final int EAGER_SEGMENTS = 2; // sealed segments loaded at startup besides the active one
+    private static final int CACHED_SEGMENTS = 4; // older segments kept in memory after a history query
+
+    private final ReentrantLock lock = new ReentrantLock(); // held over segment reads and appends
+    private final File dir;
+    private final File legacyFile;
+    private final List<SegmentIndex> sealed = new ArrayList<>();
+    private SegmentIndex active;
+    private TransactionJournal activeJournal;
+    private int firstEagerSegment = 1; // segments below this number are only read on demand
+
+    private final Map<Integer, List<BankingManagementSystem.Transaction>> pagedIn =
+            new LinkedHashMap<Integer, List<BankingManagementSystem.Transaction>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<BankingManagementSystem.Transaction>> eldest) {
+                    return size() > CACHED_SEGMENTS;
+                }
+            };
+
+    // Header of one segment: id range, date range and a bitmap of the accounts it touches
+    static class SegmentIndex {
+        private static final int MILLIS_FORMAT = -1; // leads the file; older headers start with the count
+
+        final int segmentNo;
+        int count, minId = Integer.MAX_VALUE, maxId;
+        long minDate = Long.MAX_VALUE, maxDate = Long.MIN_VALUE; // epoch millis
+        BitSet accounts = new BitSet();
+
+        SegmentIndex(int segmentNo) {
+            this.segmentNo = segmentNo;
+        }
+
+        void add(BankingManagementSystem.Transaction t) {
+            count++;
+            minId = Math.min(minId, t.transactionId);
+            maxId = Math.max(maxId, t.transactionId);
+            minDate = Math.min(minDate, t.date);
+            maxDate = Math.max(maxDate, t.date);
+            accounts.set(accountBit(t.accountId));
+        }
+
+        boolean mayContain(int accountId) {
+            return accounts.get(accountBit(accountId));
+        }
+
+        // Ids below the first account id share bit 0; that only costs a spurious page-in
+        private static int accountBit(int accountId) {
+            return Math.max(0, accountId - MappedAccountStore.FIRST_ACCOUNT_ID);
+        }
+
+        void write(File file) throws IOException {
+            File tmp = new File(file.getPath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MILLIS_FORMAT);
+                out.writeInt(count);
+                out.writeInt(minId);
+                out.writeInt(maxId);
+                out.writeLong(minDate);
+                out.writeLong(maxDate);
+                long[] bits = accounts.toLongArray();
+                out.writeInt(bits.length);
+                for (long word : bits) out.writeLong(word);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        static SegmentIndex read(int segmentNo, File file) throws IOException {
+            SegmentIndex idx = new SegmentIndex(segmentNo);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                int first = in.readInt();
+                boolean millis = first == MILLIS_FORMAT;
+                idx.count = millis ? in.readInt() : first;
+                idx.minId = in.readInt();
+                idx.maxId = in.readInt();
+                if (millis) {
+                    idx.minDate = in.readLong();
+                    idx.maxDate = in.readLong();
+                } else {
+                    // Legacy "yyyy-MM-dd HH:mm:ss" text, empty for an empty segment
+                    String min = in.readUTF(), max = in.readUTF();
+                    if (!min.isEmpty()) idx.minDate = Timestamps.parse(min);
+                    if (!max.isEmpty()) idx.maxDate = Timestamps.parse(max);
+                }
+                long[] bits = new long[in.readInt()];
+                for (int i = 0; i < bits.length; i++) bits[i] = in.readLong();
+                idx.accounts = BitSet.valueOf(bits);
+            }
+            return idx;
+        }
+    }
+
+    SegmentedTransactionStore(String dirPath, String legacyPath) {
+        this.dir = new File(dirPath);
+        this.legacyFile = new File(legacyPath);
+    }
+
+    // Reads every segment header, but only the records of the active segment and the
+    // most recent sealed ones. Startup cost no longer grows with total history.
+    List<BankingManagementSystem.Transaction> load() throws IOException {
+        lock.lock();
+        try {
+            migrateLegacyFile();
+
+            // A segment is either a CSV journal or, once archived, a columnar .col file
+            TreeSet<Integer> numbers = new TreeSet<>();
+            String[] names = dir.list((d, name) -> name.startsWith("segment-")
+                    && (name.endsWith(".csv") || name.endsWith(".col")));
+            if (names != null) {
+                for (String name : names) numbers.add(segmentNumber(name));
+            }
+            Integer[] segments = numbers.toArray(new Integer[0]);
+
+            List<BankingManagementSystem.Transaction> loaded = new ArrayList<>();
+            int firstEagerIndex = Math.max(0, segments.length - 1 - EAGER_SEGMENTS);
+            if (segments.length > 0) firstEagerSegment = segments[firstEagerIndex];
+            for (int i = 0; i < segments.length; i++) {
+                int segmentNo = segments[i];
+                boolean last = i == segments.length - 1;
+                boolean eager = i >= firstEagerIndex;
+                File indexFile = indexFile(segmentNo);
+
+                List<BankingManagementSystem.Transaction> records = null;
+                if (eager || !indexFile.exists()) {
+                    records = readSegment(segmentNo);
+                }
+
+                if (last) {
+                    active = buildIndex(segmentNo, records);
+                    activeJournal = new TransactionJournal(segmentFile(segmentNo).getPath());
+                } else if (indexFile.exists()) {
+                    sealed.add(SegmentIndex.read(segmentNo, indexFile));
+                } else {
+                    // Sealed before its header made it to disk
+                    SegmentIndex idx = buildIndex(segmentNo, records);
+                    idx.write(indexFile);
+                    sealed.add(idx);
+                }
+
+                if (eager) {
+                    loaded.addAll(records);
+                }
+            }
+
+            if (active == null) {
+                active = new SegmentIndex(1);
+                activeJournal = new TransactionJournal(segmentFile(1).getPath());
+            } else if (active.count >= SEGMENT_SIZE) {
+                sealActive(CompletableFuture.completedFuture(null));
+            }
+
+            Thread archiver = new Thread(this::archiveClosedSegments, "transaction-archiver");
+            archiver.setDaemon(true);
+            archiver.start();
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Converts closed segments (older than the eagerly loaded ones) to the columnar archive.
+    // Runs in the background; a segment that cannot be converted stays as CSV.
+    private void archiveClosedSegments() {
+        List<Integer> candidates = new ArrayList<>();
+        lock.lock();
+        try {
+            for (SegmentIndex idx : sealed) {
+                if (idx.segmentNo < firstEagerSegment && segmentFile(idx.segmentNo).exists()) {
+                    candidates.add(idx.segmentNo);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (int segmentNo : candidates) {
+            try {
+                File csv = segmentFile(segmentNo);
+                List<BankingManagementSystem.Transaction> records = new TransactionJournal(csv.getPath()).load();
+                TransactionArchive.write(records, archiveFile(segmentNo));
+                lock.lock();
+                try {
+                    Files.delete(csv.toPath());
+                    pagedIn.remove(segmentNo);
+                } finally {
+                    lock.unlock();
+                }
+            } catch (IOException ignored) {
+                // Left as CSV; retried on the next start
+            }
+        }
+    }
+
+    CompletableFuture<Void> append(BankingManagementSystem.Transaction... records) {
+        lock.lock();
+        try {
+            CompletableFuture<Void> written = activeJournal.append(records);
+            for (BankingManagementSystem.Transaction t : records) {
+                active.add(t);
+            }
+            if (active.count >= SEGMENT_SIZE) {
+                sealActive(written);
+            }
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Bulk variant of append(): one journal write per segment the records fall into
+    CompletableFuture<Void> appendAll(List<BankingManagementSystem.Transaction> records) {
+        lock.lock();
+        try {
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            int from = 0;
+            while (from < records.size()) {
+                int to = Math.min(records.size(), from + SEGMENT_SIZE - active.count);
+                writes.add(append(records.subList(from, to).toArray(new BankingManagementSystem.Transaction[0])));
+                from = to;
+            }
+            return CompletableFuture.allOf(writes.toArray(CompletableFuture<?>[]::new));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // History held only in segments that were not loaded at startup, oldest first
+    List<BankingManagementSystem.Transaction> olderHistory(int accountId) throws IOException {
+        lock.lock();
+        try {
+            List<BankingManagementSystem.Transaction> result = new ArrayList<>();
+            List<Integer> segments = olderSegments(accountId);
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                result.addAll(segmentHistory(segments.get(i), accountId));
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Segments not held in memory whose bitmap says they may hold this account, newest first
+    List<Integer> olderSegments(int accountId) {
+        lock.lock();
+        try {
+            List<Integer> result = new ArrayList<>();
+            for (int i = sealed.size() - 1; i >= 0; i--) {
+                SegmentIndex idx = sealed.get(i);
+                if (idx.segmentNo < firstEagerSegment && idx.mayContain(accountId)) result.add(idx.segmentNo);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // One segment's records for this account, oldest first
+    List<BankingManagementSystem.Transaction> segmentHistory(int segmentNo, int accountId) throws IOException {
+        lock.lock();
+        try {
+            if (!segmentFile(segmentNo).exists()) {
+                // Archived: scanned column-wise, only this account's rows become objects
+                return TransactionArchive.history(archiveFile(segmentNo), accountId);
+            }
+            List<BankingManagementSystem.Transaction> records = pagedIn.get(segmentNo);
+            if (records == null) {
+                records = new TransactionJournal(segmentFile(segmentNo).getPath()).load();
+                pagedIn.put(segmentNo, records);
+            }
+            List<BankingManagementSystem.Transaction> result = new ArrayList<>();
+            for (BankingManagementSystem.Transaction t : records) {
+                if (t.accountId == accountId) result.add(t);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int totalCount() {
+        lock.lock();
+        try {
+            int total = active.count;
+            for (SegmentIndex idx : sealed) total += idx.count;
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int maxTransactionId() {
+        lock.lock();
+        try {
+            int max = active.maxId;
+            for (SegmentIndex idx : sealed) max = Math.max(max, idx.maxId);
+            return max;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The header is written once the segment's last records are on disk
+    private void sealActive(CompletableFuture<Void> lastWrite) {
+        SegmentIndex full = active;
+        TransactionJournal fullJournal = activeJournal;
+        sealed.add(full);
+
+        active = new SegmentIndex(full.segmentNo + 1);
+        activeJournal = new TransactionJournal(segmentFile(active.segmentNo).getPath());
+
+        lastWrite.whenComplete((ok, error) -> {
+            try {
+                full.write(indexFile(full.segmentNo));
+            } catch (IOException ignored) {
+                // Rebuilt from the segment on the next start
+            }
+            fullJournal.close();
+        });
+    }
+
+    // Offline, instead of load(): rewrites every CSV segment in the current record format.
+    // Archived segments already hold paise. Returns the number of records rewritten.
+    int rewriteCsvSegments() throws IOException {
+        lock.lock();
+        try {
+            migrateLegacyFile();
+            String[] names = dir.list((d, name) -> name.startsWith("segment-") && name.endsWith(".csv"));
+            int rewritten = 0;
+            if (names != null) {
+                for (String name : names) rewritten += new TransactionJournal(new File(dir, name).getPath()).rewrite();
+            }
+            return rewritten;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The pre-segment transactions.csv is cut into SEGMENT_SIZE segments, every full one with
+    // its header, so an old history costs no more at startup than one that grew here. Built in
+    // a side directory and renamed into place; a crash part way through simply redoes it.
+    private void migrateLegacyFile() throws IOException {
+        if (dir.exists()) return;
+        File staging = new File(dir.getPath() + ".tmp");
+        File[] stale = staging.listFiles();
+        if (stale != null) {
+            for (File f : stale) Files.delete(f.toPath());
+        } else if (!staging.mkdirs()) {
+            throw new IOException("Cannot create " + staging);
+        }
+        if (legacyFile.exists()) {
+            splitLegacyFile(staging);
+        }
+        Files.move(staging.toPath(), dir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(legacyFile.toPath());
+    }
+
+    // Streams the legacy file line by line; damaged lines are skipped, as on load. Its last
+    // line may lack a newline after a hand edit, so a tail that parses is kept.
+    private void splitLegacyFile(File into) throws IOException {
+        TransactionJournal.truncateTornTail(legacyFile, TransactionJournal::isCompleteRecord);
+        RecordEncoder rows = new RecordEncoder(1 << 16);
+        SegmentIndex idx = new SegmentIndex(1);
+        FileOutputStream out = new FileOutputStream(segmentFile(into, 1));
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(legacyFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isBlank()) continue;
+                BankingManagementSystem.Transaction t;
+                try {
+                    t = BankingManagementSystem.Transaction.fromCSV(line);
+                } catch (RuntimeException e) {
+                    continue;
+                }
+                if (idx.count == SEGMENT_SIZE) {
+                    rows.flushTo(out);
+                    out.getFD().sync();
+                    out.close();
+                    idx.write(indexFile(into, idx.segmentNo));
+                    idx = new SegmentIndex(idx.segmentNo + 1);
+                    out = new FileOutputStream(segmentFile(into, idx.segmentNo));
+                }
+                rows.transaction(t);
+                idx.add(t);
+                if (rows.length() >= 1 << 16) rows.flushTo(out);
+            }
+            rows.flushTo(out);
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+    }
+
+    // The CSV wins if a crash left both files behind; the archiver simply redoes the conversion
+    private List<BankingManagementSystem.Transaction> readSegment(int segmentNo) throws IOException {
+        File csv = segmentFile(segmentNo);
+        File col = archiveFile(segmentNo);
+        if (!csv.exists() && col.exists()) {
+            return TransactionArchive.readAll(col);
+        }
+        return new TransactionJournal(csv.getPath()).load();
+    }
+
+    private static SegmentIndex buildIndex(int segmentNo, List<BankingManagementSystem.Transaction> records) {
+        SegmentIndex idx = new SegmentIndex(segmentNo);
+        for (BankingManagementSystem.Transaction t : records) idx.add(t);
+        return idx;
+    }
+
+    private File segmentFile(int segmentNo) {
+        return segmentFile(dir, segmentNo);
+    }
+
+    private static File segmentFile(File in, int segmentNo) {
+        return new File(in, String.format("segment-%06d.csv", segmentNo));
+    }
+
+    private File indexFile(int segmentNo) {
+        return indexFile(dir, segmentNo);
+    }
+
+    private static File indexFile(File in, int segmentNo) {
+        return new File(in, String.format("segment-%06d.idx", segmentNo));
+    }
+
+    private File archiveFile(int segmentNo) {
+        return new File(dir, String.format("segment-%06d.col", segmentNo));
+    }
+
+    private static int segmentNumber(String name) {
+        return Integer.parseInt(name.substring("segment-".length(), name.length() - ".csv".length()));
+    }
+}
+
+// ======================================================
+// ✅ TRANSACTION ARCHIVE (COLUMNAR, COMPRESSED)
+// ======================================================
+class TransactionArchive {
+    private static final int MAGIC = 0x54584132;        // "TXA2": dates in epoch millis
+    private static final int MAGIC_SECONDS = 0x54584131; // "TXA1": local wall-clock seconds, read only
+    private static final int BLOCK_ROWS = 4096;
+
+    // Receives one archived row as primitives; the description is a shared dictionary string
+    interface RowVisitor {
+        void row(int transactionId, int accountId, byte type, long amountPaise, long balanceAfterPaise,
+                 long epochMillis, String description);
+    }
+
+    // Layout: magic, row count, block count, deflated dictionary, then per block
+    // [rows, minAccount, maxAccount, rawLength, compressedLength, deflated columns].
+    // Columns: ids (delta), account ids (delta), type codes, description codes,
+    // epoch millis (delta), amount and balance-after in paise - all zigzag varints.
+    // The dictionary holds type names, so a file does not depend on one process's codes.
+    static void write(List<BankingManagementSystem.Transaction> records, File target) throws IOException {
+        int[] typeCodes = new int[256]; // in-memory code -> file code + 1
+        List<String> typeNames = new ArrayList<>();
+        Map<String, Integer> descriptionCodes = new LinkedHashMap<>();
+        int n = records.size();
+        long[] dates = new long[n], amounts = new long[n], balances = new long[n];
+        for (int i = 0; i < n; i++) {
+            BankingManagementSystem.Transaction t = records.get(i);
+            dates[i] = t.date;
+            amounts[i] = t.amount;
+            balances[i] = t.balanceAfter;
+            if (typeCodes[t.type & 0xFF] == 0) {
+                typeNames.add(t.typeName());
+                typeCodes[t.type & 0xFF] = typeNames.size();
+            }
+            descriptionCodes.putIfAbsent(t.description, descriptionCodes.size());
+        }
+
+        File tmp = new File(target.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            out.writeInt((n + BLOCK_ROWS - 1) / BLOCK_ROWS);
+
+            ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+            try (DataOutputStream dict = new DataOutputStream(dictionary)) {
+                dict.writeInt(typeNames.size());
+                for (String type : typeNames) dict.writeUTF(type);
+                dict.writeInt(descriptionCodes.size());
+                for (String description : descriptionCodes.keySet()) dict.writeUTF(description);
+            }
+            writeDeflated(out, dictionary.toByteArray(), dictionary.size());
+
+            VarintBuffer columns = new VarintBuffer();
+            for (int start = 0; start < n; start += BLOCK_ROWS) {
+                int end = Math.min(n, start + BLOCK_ROWS);
+                int minAccount = Integer.MAX_VALUE, maxAccount = Integer.MIN_VALUE;
+                columns.reset();
+
+                long previous = 0;
+                for (int i = start; i < end; i++) {
+                    int id = records.get(i).transactionId;
+                    columns.writeSigned(id - previous);
+                    previous = id;
+                }
+                previous = 0;
+                for (int i = start; i < end; i++) {
+                    int accountId = records.get(i).accountId;
+                    minAccount = Math.min(minAccount, accountId);
+                    maxAccount = Math.max(maxAccount, accountId);
+                    columns.writeSigned(accountId - previous);
+                    previous = accountId;
+                }
+                for (int i = start; i < end; i++) columns.writeSigned(typeCodes[records.get(i).type & 0xFF] - 1);
+                for (int i = start; i < end; i++) columns.writeSigned(descriptionCodes.get(records.get(i).description));
+                previous = 0;
+                for (int i = start; i < end; i++) {
+                    columns.writeSigned(dates[i] - previous);
+                    previous = dates[i];
+                }
+                for (int i = start; i < end; i++) columns.writeSigned(amounts[i]);
+                for (int i = start; i < end; i++) columns.writeSigned(balances[i]);
+
+                out.writeInt(end - start);
+                out.writeInt(minAccount);
+                out.writeInt(maxAccount);
+                writeDeflated(out, columns.bytes, columns.length);
+            }
+        }
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static void scan(File file, RowVisitor visitor) throws IOException {
+        scan(file, -1, visitor);
+    }
+
+    static List<BankingManagementSystem.Transaction> history(File file, int accountId) throws IOException {
+        List<BankingManagementSystem.Transaction> result = new ArrayList<>();
+        scan(file, accountId, (id, account, type, amount, balance, date, description) ->
+                result.add(new BankingManagementSystem.Transaction(id, account, type, amount, balance, date, description)));
+        return result;
+    }
+
+    static List<BankingManagementSystem.Transaction> readAll(File file) throws IOException {
+        List<BankingManagementSystem.Transaction> result = new ArrayList<>();
+        scan(file, -1, (id, account, type, amount, balance, date, description) ->
+                result.add(new BankingManagementSystem.Transaction(id, account, type, amount, balance, date, description)));
+        return result;
+    }
+
+    // Decodes block by block into primitive column arrays; blocks whose account range
+    // excludes accountId are skipped without inflating. accountId < 0 visits every row.
+    private static void scan(File file, int accountId, RowVisitor visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int magic = in.readInt();
+            if (magic != MAGIC && magic != MAGIC_SECONDS) throw new IOException("Not a transaction archive: " + file);
+            boolean seconds = magic == MAGIC_SECONDS;
+            in.readInt(); // total rows
+            int blocks = in.readInt();
+
+            byte[] types;
+            String[] descriptions;
+            try (DataInputStream dict = new DataInputStream(new ByteArrayInputStream(readDeflated(in)))) {
+                types = new byte[dict.readInt()];
+                for (int i = 0; i < types.length; i++) types[i] = CodeDictionary.TRANSACTION_TYPES.code(dict.readUTF());
+                descriptions = new String[dict.readInt()];
+                for (int i = 0; i < descriptions.length; i++) descriptions[i] = dict.readUTF();
+            }
+
+            int[] ids = new int[BLOCK_ROWS], accounts = new int[BLOCK_ROWS];
+            int[] typeCodes = new int[BLOCK_ROWS], descriptionCodes = new int[BLOCK_ROWS];
+            long[] dates = new long[BLOCK_ROWS], amounts = new long[BLOCK_ROWS], balances = new long[BLOCK_ROWS];
+            VarintBuffer columns = new VarintBuffer();
+
+            for (int b = 0; b < blocks; b++) {
+                int rows = in.readInt();
+                int minAccount = in.readInt();
+                int maxAccount = in.readInt();
+                if (accountId >= 0 && (accountId < minAccount || accountId > maxAccount)) {
+                    in.readInt(); // raw length
+                    in.skipNBytes(in.readInt());
+                    continue;
+                }
+                columns.wrap(readDeflated(in));
+
+                long previous = 0;
+                for (int i = 0; i < rows; i++) ids[i] = (int) (previous += columns.readSigned());
+                previous = 0;
+                for (int i = 0; i < rows; i++) accounts[i] = (int) (previous += columns.readSigned());
+                for (int i = 0; i < rows; i++) typeCodes[i] = (int) columns.readSigned();
+                for (int i = 0; i < rows; i++) descriptionCodes[i] = (int) columns.readSigned();
+                previous = 0;
+                for (int i = 0; i < rows; i++) dates[i] = previous += columns.readSigned();
+                if (seconds) {
+                    for (int i = 0; i < rows; i++) dates[i] = Timestamps.fromLocalEpochSecond(dates[i]);
+                }
+                for (int i = 0; i < rows; i++) amounts[i] = columns.readSigned();
+                for (int i = 0; i < rows; i++) balances[i] = columns.readSigned();
+
+                for (int i = 0; i < rows; i++) {
+                    if (accountId >= 0 && accounts[i] != accountId) continue;
+                    visitor.row(ids[i], accounts[i], types[typeCodes[i]], amounts[i], balances[i],
+                            dates[i], descriptions[descriptionCodes[i]]);
+                }
+            }
+        }
+    }
+
+    private static void writeDeflated(DataOutputStream out, byte[] raw, int length) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(raw, 0, length);
+        deflater.finish();
+        byte[] compressed = new byte[length + 64];
+        int size = 0;
+        while (!deflater.finished()) {
+            if (size == compressed.length) compressed = Arrays.copyOf(compressed, size * 2);
+            size += deflater.deflate(compressed, size, compressed.length - size);
+        }
+        deflater.end();
+        out.writeInt(length);
+        out.writeInt(size);
+        out.write(compressed, 0, size);
+    }
+
+    private static byte[] readDeflated(DataInputStream in) throws IOException {
+        byte[] raw = new byte[in.readInt()];
+        byte[] compressed = new byte[in.readInt()];
+        in.readFully(compressed);
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed);
+        try {
+            int size = 0;
+            while (size < raw.length) {
+                int n = inflater.inflate(raw, size, raw.length - size);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) break;
+                size += n;
+            }
+            if (size != raw.length) throw new IOException("Truncated archive block");
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive block", e);
+        } finally {
+            inflater.end();
+        }
+        return raw;
+    }
+
+    // Growable byte buffer for zigzag varints
+    private static final class VarintBuffer {
+        byte[] bytes = new byte[BLOCK_ROWS * 16];
+        int length, position;
+
+        void reset() {
+            length = 0;
+        }
+
+        void wrap(byte[] data) {
+            bytes = data;
+            length = data.length;
+            position = 0;
+        }
+
+        void writeSigned(long value) {
+            long v = (value << 1) ^ (value >> 63);
+            if (length + 10 > bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            while ((v & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[length++] = (byte) v;
+        }
+
+        long readSigned() {
+            long v = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                v |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return (v >>> 1) ^ -(v & 1);
+        }
+    }
+}
+
+// ======================================================
+// ✅ ACCOUNT STORE (WRITE-AHEAD LOG + SNAPSHOT)
+// ======================================================
+class AccountStore {
+    private static final int SNAPSHOT_INTERVAL = 1000; // WAL records between snapshots
+
+    // Receives redo records in log order
+    interface RedoVisitor {
+        void newAccount(BankingManagementSystem.Account a);
+        void balance(int accountId, long balancePaise);
+    }
+
+    private final File snapshotFile;
+    private final File walFile;
+    private final File rolledWalFile;
+    private final AppendLog wal;
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "account-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ReentrantLock lock = new ReentrantLock(); // posting threads, virtual ones included, log through here
+    private final RecordEncoder walRecord = new RecordEncoder(); // guarded by lock
+    private int walRecords;
+    private boolean snapshotInProgress;
+
+    AccountStore(String snapshotPath) {
+        this.snapshotFile = new File(snapshotPath);
+        this.walFile = new File(snapshotPath + ".wal");
+        this.rolledWalFile = new File(snapshotPath + ".wal.old");
+        this.wal = new AppendLog(walFile);
+    }
+
+    // Loads the last snapshot, then replays the rolled WAL (a snapshot that did not finish)
+    // and the live WAL on top of it.
+    List<BankingManagementSystem.Account> load() throws IOException {
+        Map<Integer, BankingManagementSystem.Account> byId = new LinkedHashMap<>();
+        for (BankingManagementSystem.Account a : CsvParser.readAccounts(snapshotFile)) {
+            byId.put(a.accountId, a);
+        }
+        boolean interruptedSnapshot = rolledWalFile.exists();
+        RedoVisitor apply = new RedoVisitor() {
+            @Override
+            public void newAccount(BankingManagementSystem.Account a) {
+                byId.putIfAbsent(a.accountId, a);
+            }
+
+            @Override
+            public void balance(int accountId, long balancePaise) {
+                BankingManagementSystem.Account a = byId.get(accountId);
+                if (a != null) a.balance = balancePaise;
+            }
+        };
+        replay(rolledWalFile, apply);
+        walRecords = replay(walFile, apply);
+        List<BankingManagementSystem.Account> loaded = new ArrayList<>(byId.values());
+
+        // Finish the snapshot a crash interrupted so the rolled WAL can be dropped
+        if (interruptedSnapshot) {
+            RecordEncoder rows = new RecordEncoder(loaded.size() * 64 + 16);
+            for (BankingManagementSystem.Account a : loaded) {
+                rows.account(a);
+            }
+            writeSnapshot(rows);
+            Files.deleteIfExists(rolledWalFile.toPath());
+        }
+        return loaded;
+    }
+
+    CompletableFuture<Void> logBalances(BankingManagementSystem.Account... changed) {
+        lock.lock();
+        try {
+            walRecord.reset();
+            for (BankingManagementSystem.Account a : changed) {
+                walRecord.put((byte) 'B').comma().number(a.accountId).comma().paise(a.balance).newline();
+            }
+            return appendToWal(changed.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    CompletableFuture<Void> logNewAccount(BankingManagementSystem.Account account) {
+        lock.lock();
+        try {
+            walRecord.reset().put((byte) 'A').comma().account(account);
+            return appendToWal(1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Rolls the WAL aside and writes the snapshot in the background once enough records have
+    // accumulated. Only the in-memory copy of the rows is taken on the caller's thread.
+    void snapshotIfDue(List<BankingManagementSystem.Account> accounts) {
+        lock.lock();
+        try {
+            if (walRecords < SNAPSHOT_INTERVAL || snapshotInProgress) return;
+
+            RecordEncoder rows = new RecordEncoder(accounts.size() * 64 + 16);
+            synchronized (accounts) {
+                for (BankingManagementSystem.Account a : accounts) {
+                    rows.account(a);
+                }
+            }
+            // Every record logged so far is reflected in rows, so replaying the rolled WAL over the
+            // new snapshot (or an old one, if the snapshot never lands) gives the same balances.
+            // A rolled WAL kept by an earlier failed snapshot is extended, not overwritten.
+            CompletableFuture<Void> rolled = wal.rollTo(rolledWalFile);
+            walRecords = 0;
+            snapshotInProgress = true;
+
+            snapshotWriter.execute(() -> {
+                try {
+                    rolled.join();
+                    writeSnapshot(rows);
+                    Files.deleteIfExists(rolledWalFile.toPath());
+                } catch (IOException | CompletionException ignored) {
+                    // The rolled WAL is kept and replayed on the next start
+                } finally {
+                    lock.lock();
+                    try {
+                        snapshotInProgress = false;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes a full snapshot right away and starts an empty WAL. Used after bulk updates, where
+    // rewriting the file once is cheaper than a redo record per changed balance.
+    void checkpoint(List<BankingManagementSystem.Account> accounts) throws IOException {
+        lock.lock();
+        try {
+            RecordEncoder rows = new RecordEncoder(accounts.size() * 64 + 16);
+            synchronized (accounts) {
+                for (BankingManagementSystem.Account a : accounts) {
+                    rows.account(a);
+                }
+            }
+            wal.rollTo(rolledWalFile).join();
+            walRecords = 0;
+            writeSnapshot(rows);
+            Files.deleteIfExists(rolledWalFile.toPath());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Appends whatever walRecord holds
+    private CompletableFuture<Void> appendToWal(int count) {
+        walRecords += count;
+        return wal.append(walRecord.array(), walRecord.length());
+    }
+
+    // Synced before the rename: callers delete the rolled WAL, the only other copy of these
+    // balances, as soon as this returns.
+    private void writeSnapshot(RecordEncoder rows) throws IOException {
+        File tmp = new File(snapshotFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            rows.writeTo(out);
+            out.getFD().sync();
+        }
+        Files.move(tmp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // The rolled WAL, then the live one, of the snapshot at snapshotPath
+    static void replayWal(String snapshotPath, RedoVisitor visitor) throws IOException {
+        replay(new File(snapshotPath + ".wal.old"), visitor);
+        replay(new File(snapshotPath + ".wal"), visitor);
+    }
+
+    private static int replay(File wal, RedoVisitor visitor) throws IOException {
+        if (!wal.exists()) return 0;
+        TransactionJournal.truncateTornTail(wal);
+
+        int count = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(wal))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.length() < 2) continue;
+                try {
+                    if (line.charAt(0) == 'A') {
+                        visitor.newAccount(BankingManagementSystem.Account.fromCSV(line.substring(2)));
+                    } else if (line.charAt(0) == 'B') {
+                        String[] p = line.split(",");
+                        visitor.balance(Integer.parseInt(p[1]), Money.parse(p[2]));
+                    }
+                    count++;
+                } catch (RuntimeException ignored) {
+                    // Skip a damaged redo record
+                }
+            }
+        }
+        return count;
+    }
+}
+
+// ======================================================
+// ✅ MEMORY-MAPPED ACCOUNT STORE (FIXED-WIDTH BINARY)
+// ======================================================
+class MappedAccountStore {
+    static final int FIRST_ACCOUNT_ID = 5001; // slot = accountId - FIRST_ACCOUNT_ID
+
+    private static final int MAGIC = 0x42414E4B; // "BANK"
+    private static final int VERSION = 3;        // 1 held the balance as a double of rupees, 2 the date as text
+    private static final int HEADER_SIZE = 16;   // magic, version, nextAccountId, reserved
+    private static final int RECORD_SIZE = 64;
+    private static final int INITIAL_SLOTS = 1024;
+
+    // Record layout: accountId, customerId, balance (long paise), zero-padded ASCII type and status,
+    // created date (long epoch millis), then padding
+    private static final int OFF_ID = 0;
+    private static final int OFF_CUSTOMER = 4;
+    private static final int OFF_BALANCE = 8;
+    private static final int OFF_TYPE = 16, LEN_TYPE = 16;
+    private static final int OFF_STATUS = 32, LEN_STATUS = 12;
+    private static final int OFF_CREATED = 44;
+    private static final int LEN_LEGACY_CREATED = 20; // version 2 and earlier: "yyyy-MM-dd HH:mm:ss" text
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity; // slots currently mapped
+
+    private MappedAccountStore(FileChannel channel, int capacity) throws IOException {
+        this.channel = channel;
+        map(capacity);
+    }
+
+    static MappedAccountStore open(String path) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(path),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long existingSlots = Math.max(0, (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+        MappedAccountStore store = new MappedAccountStore(channel, (int) Math.max(INITIAL_SLOTS, existingSlots));
+        if (store.buffer.getInt(0) != MAGIC) {
+            store.buffer.putInt(0, MAGIC);
+            store.buffer.putInt(4, VERSION);
+            store.buffer.putInt(8, FIRST_ACCOUNT_ID);
+        } else {
+            if (store.buffer.getInt(4) == 1) store.migrateBalancesToPaise();
+            if (store.buffer.getInt(4) == 2) store.migrateCreatedToMillis();
+        }
+        return store;
+    }
+
+    // In place: each balance slot is rewritten as paise, then the version is bumped. A crash
+    // part way leaves version 1 and the rerun skips converted slots: any paise value below 2^52
+    // has a zero exponent field, so read as a double it is zero or subnormal, which no rupee
+    // amount of at least one paisa is.
+    private void migrateBalancesToPaise() {
+        int used = nextAccountId() - FIRST_ACCOUNT_ID;
+        for (int slot = 0; slot < used; slot++) {
+            int pos = position(slot);
+            if (buffer.getInt(pos + OFF_ID) == 0) continue;
+            double rupees = buffer.getDouble(pos + OFF_BALANCE);
+            if (Math.abs(rupees) < Double.MIN_NORMAL) continue;
+            buffer.putLong(pos + OFF_BALANCE, Math.round(rupees * 100));
+        }
+        buffer.force();
+        buffer.putInt(4, 2);
+        buffer.force();
+    }
+
+    // In place: each created date is rewritten from text to millis, then the version is bumped.
+    // A rerun after a crash skips converted slots, whose first byte is the top byte of a positive
+    // millis value (zero until the year 4200) rather than an ASCII digit.
+    private void migrateCreatedToMillis() {
+        int used = nextAccountId() - FIRST_ACCOUNT_ID;
+        for (int slot = 0; slot < used; slot++) {
+            int pos = position(slot);
+            if (buffer.getInt(pos + OFF_ID) == 0) continue;
+            byte first = buffer.get(pos + OFF_CREATED);
+            if (first < '0' || first > '9') continue;
+            long millis = Timestamps.parse(readText(pos + OFF_CREATED, LEN_LEGACY_CREATED));
+            for (int i = 0; i < LEN_LEGACY_CREATED; i++) buffer.put(pos + OFF_CREATED + i, (byte) 0);
+            buffer.putLong(pos + OFF_CREATED, millis);
+        }
+        buffer.force();
+        buffer.putInt(4, VERSION);
+        buffer.force();
+    }
+
+    // Same semantics as recalculateNextIds(): highest account id + 1, or 5001 when empty
+    synchronized int nextAccountId() {
+        return buffer.getInt(8);
+    }
+
+    synchronized List<BankingManagementSystem.Account> loadAll() {
+        List<BankingManagementSystem.Account> loaded = new ArrayList<>();
+        int used = nextAccountId() - FIRST_ACCOUNT_ID;
+        for (int slot = 0; slot < used; slot++) {
+            int pos = position(slot);
+            if (buffer.getInt(pos + OFF_ID) == 0) continue; // empty slot
+            loaded.add(new BankingManagementSystem.Account(
+                    buffer.getInt(pos + OFF_ID),
+                    buffer.getInt(pos + OFF_CUSTOMER),
+                    readCode(pos + OFF_TYPE, LEN_TYPE, CodeDictionary.ACCOUNT_TYPES),
+                    buffer.getLong(pos + OFF_BALANCE),
+                    readCode(pos + OFF_STATUS, LEN_STATUS, CodeDictionary.STATUSES),
+                    buffer.getLong(pos + OFF_CREATED)));
+        }
+        return loaded;
+    }
+
+    synchronized void put(BankingManagementSystem.Account a) throws IOException {
+        checkFits(a);
+        int slot = slotOf(a.accountId);
+        if (slot >= capacity) {
+            map(Math.max(capacity * 2, slot + 1));
+        }
+        int pos = position(slot);
+        buffer.putInt(pos + OFF_ID, a.accountId);
+        buffer.putInt(pos + OFF_CUSTOMER, a.customerId);
+        buffer.putLong(pos + OFF_BALANCE, a.balance);
+        writeText(pos + OFF_TYPE, LEN_TYPE, a.accountTypeName());
+        writeText(pos + OFF_STATUS, LEN_STATUS, a.statusName());
+        buffer.putLong(pos + OFF_CREATED, a.createdDate);
+        if (a.accountId >= nextAccountId()) {
+            buffer.putInt(8, a.accountId + 1);
+            buffer.force(0, HEADER_SIZE);
+        }
+        buffer.force(pos, RECORD_SIZE);
+    }
+
+    // The hot path: 8 bytes written in place, nothing re-serialised, and only the page holding
+    // them forced before the posting is acknowledged
+    synchronized void updateBalance(int accountId, long balance) {
+        int pos = writeBalance(accountId, balance);
+        buffer.force(pos + OFF_BALANCE, Long.BYTES);
+    }
+
+    // Batch posting writes every balance first and forces the whole file once, through close()
+    synchronized int writeBalance(int accountId, long balance) {
+        int slot = slotOf(accountId);
+        if (slot >= capacity || buffer.getInt(position(slot) + OFF_ID) != accountId) {
+            throw new IllegalArgumentException("Account " + accountId + " is not in the binary store");
+        }
+        buffer.putLong(position(slot) + OFF_BALANCE, balance);
+        return position(slot);
+    }
+
+    synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    // Every row is checked before the file is created, so a refused conversion leaves no
+    // partial accounts.dat behind for the next start to open.
+    static void convertFromAccounts(List<BankingManagementSystem.Account> accounts, String datPath) throws IOException {
+        for (BankingManagementSystem.Account a : accounts) {
+            checkFits(a);
+        }
+        Files.deleteIfExists(Paths.get(datPath));
+        MappedAccountStore store = open(datPath);
+        for (BankingManagementSystem.Account a : accounts) {
+            store.put(a);
+        }
+        store.close();
+    }
+
+    static void convertToCsv(String datPath, String csvPath) throws IOException {
+        MappedAccountStore store = open(datPath);
+        try (FileOutputStream out = new FileOutputStream(csvPath)) {
+            RecordEncoder rows = new RecordEncoder(1 << 16);
+            for (BankingManagementSystem.Account a : store.loadAll()) {
+                rows.account(a);
+                if (rows.length() >= 1 << 16) rows.flushTo(out);
+            }
+            rows.flushTo(out);
+        } finally {
+            store.close();
+        }
+        // The CSV now holds every balance; an older WAL must not be replayed over it
+        Files.deleteIfExists(Paths.get(csvPath + ".wal"));
+        Files.deleteIfExists(Paths.get(csvPath + ".wal.old"));
+    }
+
+    private void map(int slots) throws IOException {
+        if (buffer != null) buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * RECORD_SIZE);
+        capacity = slots;
+    }
+
+    // Ids below the first slot, and type or status names longer than their fields, have no
+    // place in the fixed-width layout
+    private static void checkFits(BankingManagementSystem.Account a) throws IOException {
+        if (a.accountId < FIRST_ACCOUNT_ID) {
+            throw new IOException("Account id " + a.accountId + " is below " + FIRST_ACCOUNT_ID);
+        }
+        checkLength(a, "type", a.accountTypeName(), LEN_TYPE);
+        checkLength(a, "status", a.statusName(), LEN_STATUS);
+    }
+
+    private static void checkLength(BankingManagementSystem.Account a, String field, String value, int len) throws IOException {
+        if (value.getBytes(StandardCharsets.US_ASCII).length > len) {
+            throw new IOException("Account " + a.accountId + " " + field + " \"" + value + "\" is longer than " + len + " bytes");
+        }
+    }
+
+    private static int slotOf(int accountId) {
+        if (accountId < FIRST_ACCOUNT_ID) {
+            throw new IllegalArgumentException("Account id " + accountId + " is below " + FIRST_ACCOUNT_ID);
+        }
+        return accountId - FIRST_ACCOUNT_ID;
+    }
+
+    private static int position(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private String readText(int pos, int len) {
+        byte[] bytes = new byte[len];
+        int n = 0;
+        while (n < len && buffer.get(pos + n) != 0) {
+            bytes[n] = buffer.get(pos + n);
+            n++;
+        }
+        return new String(bytes, 0, n, StandardCharsets.US_ASCII);
+    }
+
+    // The name stays on disk: appended codes are only stable within one process
+    private byte readCode(int pos, int len, CodeDictionary dictionary) {
+        String[] names = dictionary.names();
+        for (int code = 0; code < names.length; code++) {
+            String name = names[code];
+            if (name.length() > len || (name.length() < len && buffer.get(pos + name.length()) != 0)) continue;
+            int i = 0;
+            while (i < name.length() && buffer.get(pos + i) == name.charAt(i)) i++;
+            if (i == name.length()) return (byte) code;
+        }
+        return dictionary.code(readText(pos, len));
+    }
+
+    private void writeText(int pos, int len, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < len; i++) {
+            buffer.put(pos + i, i < bytes.length ? bytes[i] : 0);
+        }
+    }
+}
+
+// ======================================================
+// ✅ CREDENTIAL STORE (INDEXED USERS.CSV)
+// ======================================================
+// users.csv stays a "username,password" log: registrations and password resets append a
+// line and the last line for a username wins. Lookups use a map that follows the file -
+// bytes appended since the last read are parsed on the next call, any other change (an
+// edit, a replaced file) reloads it - so a login is one stat and one hash lookup.
+class CredentialStore {
+    private static final int COMPACT_MIN_STALE = 1024; // superseded lines tolerated before a rewrite
+    private static final int READ_CHUNK = 1 << 16;
+
+    private final Path path;
+    private final ReentrantLock lock = new ReentrantLock(); // teller logins stat and read the file under it
+    private final Map<String, String> passwords = new LinkedHashMap<>(); // null: a line without a password
+    private Object loadedKey;     // identity (inode) of the file the map reflects
+    private long loadedSize = -1; // bytes parsed so far; -1 before the first read
+    private long loadedModified;
+    private int staleLines;       // lines superseded by a later line for the same user
+
+    CredentialStore(String path) {
+        this.path = Paths.get(path);
+    }
+
+    boolean check(String username, String password) throws IOException {
+        lock.lock();
+        try {
+            if (!refresh()) throw new FileNotFoundException(path.toString());
+            return password.equals(passwords.get(username));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // False, writing nothing, when the username is taken
+    boolean register(String username, String password) throws IOException {
+        lock.lock();
+        try {
+            refresh();
+            if (passwords.containsKey(username)) return false;
+            append(username, password);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // False when the username is unknown, or its line has no password (the old reader skipped
+    // such lines). The old line stays until the next compaction.
+    boolean resetPassword(String username, String password) throws IOException {
+        lock.lock();
+        try {
+            if (!refresh()) throw new FileNotFoundException(path.toString());
+            if (passwords.get(username) == null) return false;
+            append(username, password);
+            if (staleLines > Math.max(COMPACT_MIN_STALE, passwords.size())) compact();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Reads the file ahead of the first login
+    void preload() {
+        try {
+            lock.lock();
+            try {
+                refresh();
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException ignored) {}
+    }
+
+    // UTF-8, the charset read() decodes with, whatever the platform default
+    private void append(String username, String password) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND, StandardOpenOption.CREATE)) {
+            bw.write(username + "," + password);
+            bw.newLine();
+        }
+        refresh(); // the new line reaches the map through the same tail read as anyone else's
+    }
+
+    // Returns false if the file does not exist
+    private boolean refresh() throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            passwords.clear();
+            staleLines = 0;
+            loadedSize = -1;
+            return false;
+        }
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().toMillis();
+        Object key = attrs.fileKey();
+        if (size == loadedSize && modified == loadedModified && Objects.equals(key, loadedKey)) return true;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            boolean appended = loadedSize >= 0 && size > loadedSize && Objects.equals(key, loadedKey)
+                    && endsLine(channel, loadedSize);
+            if (!appended) {
+                passwords.clear();
+                staleLines = 0;
+                loadedSize = 0;
+            }
+            loadedSize = read(channel, loadedSize);
+        }
+        loadedKey = key;
+        loadedModified = modified;
+        return true;
+    }
+
+    private static boolean endsLine(FileChannel channel, long offset) throws IOException {
+        if (offset == 0) return true;
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return channel.read(last, offset - 1) == 1 && last.get(0) == '\n';
+    }
+
+    // Parses complete lines from offset on and returns where parsing stopped; a final line
+    // without a newline is taken as it stands, as a line reader would
+    private long read(FileChannel channel, long offset) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(READ_CHUNK);
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        long position = offset;
+        int n;
+        while ((n = channel.read(chunk, position)) > 0) {
+            byte[] bytes = chunk.array();
+            for (int i = 0; i < n; i++) {
+                byte b = bytes[i];
+                if (b == '\n') {
+                    apply(line, lineLength);
+                    lineLength = 0;
+                } else {
+                    if (lineLength == line.length) line = Arrays.copyOf(line, line.length * 2);
+                    line[lineLength++] = b;
+                }
+            }
+            position += n;
+            chunk.clear();
+        }
+        if (lineLength > 0) apply(line, lineLength);
+        return position;
+    }
+
+    // "username,password[,...]", as the old split(",") reading took it
+    private void apply(byte[] line, int length) {
+        if (length > 0 && line[length - 1] == '\r') length--;
+        if (length == 0) return;
+        int comma = 0;
+        while (comma < length && line[comma] != ',') comma++;
+        String username = new String(line, 0, comma, StandardCharsets.UTF_8);
+        String password = null;
+        if (comma < length) {
+            int end = comma + 1;
+            while (end < length && line[end] != ',') end++;
+            if (end > comma + 1) password = new String(line, comma + 1, end - comma - 1, StandardCharsets.UTF_8);
+        }
+        if (passwords.containsKey(username)) staleLines++;
+        passwords.put(username, password);
+    }
+
+    // Rewrites the file with one line per user, then carries on from the new file. The temp
+    // file is synced before it replaces the only copy of every credential.
+    private void compact() throws IOException {
+        File tmp = new File(path + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (Map.Entry<String, String> e : passwords.entrySet()) {
+                bw.write(e.getValue() == null ? e.getKey() : e.getKey() + "," + e.getValue());
+                bw.newLine();
+            }
+            bw.flush();
+            out.getFD().sync();
+        }
+        Files.move(tmp.toPath(), path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        loadedKey = attrs.fileKey();
+        loadedSize = attrs.size();
+        loadedModified = attrs.lastModifiedTime().toMillis();
+        staleLines = 0;
+    }
+}
+
+// ======================================================
+// ✅ LOGIN FRAME (UPDATED)
+// ======================================================
+class LoginFrame extends JFrame {
+    private JTextField usernameField;
+    private JTextField emailField;
+    private JPasswordField passwordField;
+    private static final String USERS_FILE = "users.csv";
+    private final String USER_DETAILS_FILE = "user_details.csv";
+
+    // Shared with the registration and password-reset frames and the teller server
+    static final CredentialStore CREDENTIALS = new CredentialStore(USERS_FILE);
+
+    public LoginFrame() {
+        CompletableFuture.runAsync(CREDENTIALS::preload);
+
+        setTitle("🔐 Bank Login");
+        setExtendedState(JFrame.MAXIMIZED_BOTH);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+        getContentPane().setLayout(new BorderLayout());
+
+        // Dark theme colors
+        Color BG_COLOR = new Color(30, 33, 35);
+        Color PANEL_COLOR = new Color(45, 48, 50);
+        Color ACCENT_COLOR = new Color(0, 153, 255);
+        Color TEXT_COLOR = Color.WHITE;
+
+        // --- 1. Top Title Panel ---
+        JPanel headerPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        headerPanel.setBackground(PANEL_COLOR);
+        headerPanel.setBorder(new EmptyBorder(10, 0, 10, 0));
+        
+        JLabel mainTitle = new JLabel("BANKING MANAGEMENT LOGIN", SwingConstants.CENTER); 
+        mainTitle.setForeground(ACCENT_COLOR);
+        mainTitle.setFont(new Font("Segoe UI", Font.BOLD, 36));
+        headerPanel.add(mainTitle);
+        add(headerPanel, BorderLayout.NORTH);
+
+        // --- 2. Login Form Panel (Centered) ---
+        JPanel formContainer = new JPanel(new GridBagLayout());
+        formContainer.setBackground(BG_COLOR);
+
+        // Login box content
+        JPanel panel = new JPanel(new BorderLayout(10, 20));
+        panel.setBackground(new Color(25, 25, 25));
+        panel.setBorder(new EmptyBorder(30, 40, 30, 40));
+        panel.setPreferredSize(new java.awt.Dimension(350, 400));
 
         // UPDATED: "Account Holder Login"
         JLabel title = new JLabel("Account Holder Login", SwingConstants.CENTER);
@@ -1144,18 +5854,8 @@ class LoginFrame extends JFrame {
             return;
         }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(USERS_FILE))) {
-            String line;
-            boolean found = false;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 2 && parts[0].equals(username) && parts[1].equals(password)) {
-                    found = true;
-                    break;
-                }
-            }
-
-            if (found) {
+        try {
+            if (checkCredentials(username, password)) {
                 JOptionPane.showMessageDialog(this, "✅ Login Successful! Welcome " + username);
                 dispose();
 
@@ -1172,6 +5872,11 @@ class LoginFrame extends JFrame {
             JOptionPane.showMessageDialog(this, "System error: User database not found. Please register first.", "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
+
+    // Also used by the teller server, so terminals accept the same credentials as this window
+    static boolean checkCredentials(String username, String password) throws IOException {
+        return CREDENTIALS.check(username, password);
+    }
 }
 
 // ======================================================
@@ -1181,7 +5886,6 @@ class ForgotPasswordFrame extends JFrame {
     private JTextField usernameField;
     private JTextField emailField;
     private JPasswordField newPasswordField, confirmNewPasswordField;
-    private final String USERS_FILE = "users.csv";
     private final String USER_DETAILS_FILE = "user_details.csv";
     private JFrame loginFrame;
 
@@ -1319,34 +6023,9 @@ class ForgotPasswordFrame extends JFrame {
             return;
         }
 
-        // 3. Update Password in users.csv
+        // 3. Update Password in users.csv (appended; the latest line wins)
         try {
-            File usersFile = new File(USERS_FILE);
-            List<String> updatedLines = new ArrayList<>();
-            boolean passwordUpdated = false;
-
-            try (BufferedReader br = new BufferedReader(new FileReader(usersFile))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] parts = line.split(",");
-                    if (parts.length >= 2 && parts[0].equals(username)) {
-                        // Found user, update the password (parts[1])
-                        updatedLines.add(username + "," + newPassword);
-                        passwordUpdated = true;
-                    } else {
-                        updatedLines.add(line);
-                    }
-                }
-            }
-
-            if (passwordUpdated) {
-                // Write all lines back to the file
-                try (BufferedWriter bw = new BufferedWriter(new FileWriter(usersFile, false))) {
-                    for (String line : updatedLines) {
-                        bw.write(line);
-                        bw.newLine();
-                    }
-                }
+            if (LoginFrame.CREDENTIALS.resetPassword(username, newPassword)) {
                 JOptionPane.showMessageDialog(this, "✅ Password reset successfully! You can now log in.", "Success", JOptionPane.INFORMATION_MESSAGE);
                 dispose();
             } else {
@@ -1367,7 +6046,6 @@ class RegisterFrame extends JFrame {
     private JTextField usernameField;
     private JPasswordField passwordField, confirmPasswordField;
     private JLabel guidelinesLabel;
-    private final String USERS_FILE = "users.csv";
     private JFrame loginFrame;
 
     public RegisterFrame(JFrame loginFrame) {
@@ -1513,28 +6191,10 @@ class RegisterFrame extends JFrame {
         }
 
         try {
-            File file = new File(USERS_FILE);
-
-            // Check for existing username
-            if (file.exists()) {
-                try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        String[] parts = line.split(",");
-                        if (parts.length > 0 && parts[0].equals(username)) {
-                            JOptionPane.showMessageDialog(this, "Username already exists!", "Error", JOptionPane.ERROR_MESSAGE);
-                            return;
-                        }
-                    }
-                }
-            } else {
-                file.createNewFile();
-            }
-
-            // Save new user
-            try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, true))) {
-                bw.write(username + "," + password);
-                bw.newLine();
+            // Duplicate check and append in one step
+            if (!LoginFrame.CREDENTIALS.register(username, password)) {
+                JOptionPane.showMessageDialog(this, "Username already exists!", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
 
             // UPDATED: Success message